@@ -0,0 +1,152 @@
+/**
+A* on the grid graph of the world. The heuristic is the octile distance, which is exact on an empty grid.
+All the scratch memory is allocated once, so a search allocates nothing. Each searching object (e.g. each Hunter) needs its own instance.
+**/
+public class AStarSearch {
+
+  private GridGraph _graph;
+  private double[] _g; // cost from the start. only valid for nodes with the current generation
+  private int[] _parent; // previous node on the best path found so far. only valid for nodes with the current generation
+  private int[] _generations; // _generation if the node is open, _generation + 1 if it is closed, anything else if the current search has not seen it
+  private int _generation;
+  private IndexedHeap _open;
+  private int _expanded;
+  private int _to; // goal of the search started last
+  private int[] _neighbors; // scratch space for the neighbors of a node
+  private double[] _costs; // scratch space for the costs to the neighbors of a node
+
+  /**
+  Constructor
+  **/
+  public AStarSearch(World world) {
+    _graph = world.getGridGraph();
+    int nodes = _graph.getNodeCount();
+    _g = new double[nodes];
+    _parent = new int[nodes];
+    _generations = new int[nodes];
+    _generation = 0;
+    _open = new IndexedHeap(nodes);
+    _neighbors = new int[8];
+    _costs = new double[8];
+  }
+
+  /**
+  Search the shortest path between two nodes. The path, starting with the from node, is written into the buffer. If it is longer than the buffer, only its beginning is written.
+  Returns the number of nodes of the whole path, or -1 if there is no path.
+  **/
+  public int search(int from, int to, int[] path) {
+    start(from, to);
+    int length = proceed(Integer.MAX_VALUE);
+    if (length > 0) {
+      writePath(path);
+    }
+    return length;
+  }
+
+  /**
+  Start a search between two nodes without expanding any node yet. proceed() does the work, so a search can be spread over several ticks.
+  **/
+  public void start(int from, int to) {
+    _expanded = 0;
+    _open.clear();
+    startGeneration();
+    _to = to;
+    if (!_graph.isWalkable(to)) {
+      return;
+    }
+
+    _g[from] = 0;
+    _parent[from] = -1;
+    _generations[from] = _generation;
+    double h = _graph.heuristic(from, to);
+    _open.push(from, h, h);
+  }
+
+  /**
+  Expand up to a number of nodes of the search started last. Returns the number of nodes of the whole path once it is found, -1 if there is no path,
+  or 0 if the search is not over yet and has to proceed later. The path can then be written with writePath().
+  **/
+  public int proceed(int budget) {
+    for (int expanded = 0; expanded < budget; expanded++) {
+      if (_open.isEmpty()) {
+        return -1;
+      }
+      int node = _open.pop();
+      if (node == _to) {
+        _open.clear();
+        return pathLength();
+      }
+      _generations[node] = _generation + 1;
+      _expanded++;
+
+      double g = _g[node];
+      int count = _graph.neighbors(node, _neighbors, _costs);
+      for (int i = 0; i < count; i++) {
+        relax(node, _neighbors[i], g + _costs[i], _to);
+      }
+    }
+    return _open.isEmpty() ? -1 : 0;
+  }
+
+  /**
+  Number of nodes expanded by the last search
+  **/
+  public int getExpandedNodes() {
+    return _expanded;
+  }
+
+  /**
+  Open a neighbor or update it if the new path to it is shorter
+  **/
+  private void relax(int node, int neighbor, double g, int goal) {
+    int generation = _generations[neighbor];
+    // the heuristic is consistent, so closed nodes already have their shortest path
+    if (generation == _generation + 1 || (generation == _generation && g >= _g[neighbor])) {
+      return;
+    }
+    _g[neighbor] = g;
+    _parent[neighbor] = node;
+    _generations[neighbor] = _generation;
+    // among equal estimates, prefer the nodes closer to the goal
+    double h = _graph.heuristic(neighbor, goal);
+    _open.push(neighbor, g + h, h);
+  }
+
+  /**
+  Number of nodes of the path found by the last search
+  **/
+  private int pathLength() {
+    int length = 0;
+    for (int node = _to; node != -1; node = _parent[node]) {
+      length++;
+    }
+    return length;
+  }
+
+  /**
+  Follow the parents back from the goal of the last search, which has to have found a path, and write the beginning of the path into the buffer. Returns the length of the whole path.
+  **/
+  public int writePath(int[] path) {
+    int length = pathLength();
+    int index = length - 1;
+    for (int node = _to; node != -1; node = _parent[node]) {
+      if (index < path.length) {
+        path[index] = node;
+      }
+      index--;
+    }
+    return length;
+  }
+
+  /**
+  Start a new search. Bumping the generation invalidates all the scratch memory of the previous search without touching it.
+  **/
+  private void startGeneration() {
+    _generation += 2;
+    // start over before the counter overflows
+    if (_generation >= Integer.MAX_VALUE - 2) {
+      Arrays.fill(_generations, 0);
+      _generation = 2;
+    }
+  }
+}
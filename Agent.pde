@@ -4,24 +4,30 @@ Agent parent class. The hero and the hunters will be subclasses of it.
 public abstract class Agent implements Drawable {
   
   private CoordinateDouble _position;
+  private CoordinateDouble _previousPosition; // position at the start of the tick, to draw the agent between ticks
   private CoordinateInt _destination;
   private double _speed;
   private PImage _image;
   private World _world;
   private CoordinateDouble _direction; // vector pointing in the direction of the destination
+  private CoordinateInt _screenPosition; // scratch space for drawing
   private float _lastTheta; // last angle the agent sprite was rotated. used to prevent the sprite from always facing the same direction once its destination has been reached
+  private int _indexSlot; // slot in the agent index of the world. -1 if the agent is not in it
   
   /**
   Constructor
   **/
   public Agent(CoordinateInt position, Double speed, PImage image, World world) {
     _position = world.gridCenterToPosition(position);
+    _previousPosition = new CoordinateDouble(_position.getX(), _position.getY());
     _destination = position;
     _direction = new CoordinateDouble(0, 0);
+    _screenPosition = new CoordinateInt(0, 0);
     _speed = speed;
     _image = image;
     _world = world;
     _lastTheta = atan2(0, 0) + PI/2;
+    _indexSlot = -1;
   }
   
   /**
@@ -36,6 +42,22 @@ public abstract class Agent implements Drawable {
     return _position;
   }
   
+  /**
+  Position setter. Puts the agent somewhere else without moving it there, so it isn't drawn on the way either. The position is copied, since the agent moves its own position object.
+  **/
+  public void setPosition(CoordinateDouble position) {
+    _position.set(position);
+    _previousPosition.set(position);
+    _world.getAgentIndex().update(this);
+  }
+  
+  /**
+  Keep the position as where the agent was before the tick. The simulation does it for all agents at the start of each tick.
+  **/
+  public void rememberPosition() {
+    _previousPosition.set(_position);
+  }
+  
   /**
   Position setter
   **/
@@ -61,34 +83,49 @@ public abstract class Agent implements Drawable {
   Move an agent in the direction of its current destination
   **/
   protected void move() {
-    // calculate direction vector
-    _direction = new CoordinateDouble(_destination.getX(), _destination.getY());
-    _direction = _world.gridCenterToPosition(_destination);
+    // calculate direction vector. it is kept between ticks for drawing, so it is computed in place
+    _world.gridCenterToPosition(_destination, _direction);
     _direction.minus(_position);
     
     // usually, move one unit of speed of the agent. but if the destination is closer than one speed unit, limit the speed in order to not overshoot the destination
-    if (_direction.magnitude() > _speed) {
-      _direction.normalize();
+    double magnitude = _direction.magnitude();
+    if (magnitude > _speed) {
+      _direction.dividedBy(magnitude);
       _direction.times(_speed);
     }
     
     // calculate the new position. do not step on not walkable squares
-    CoordinateDouble newPosition = new CoordinateDouble(_position.getX(), _position.getY());
-    newPosition.plus(_direction);
-    if (_world.isWalkable(newPosition)) {
-      _position = newPosition;
+    double x = _position.getX() + _direction.getX();
+    double y = _position.getY() + _direction.getY();
+    if (_world.isWalkable(x, y)) {
+      _position.set(x, y);
+      _world.getAgentIndex().update(this);
     }
   }
   
   /**
-  Draw the agent
+  Slot in the agent index of the world getter. -1 if the agent is not in it.
+  **/
+  public int getIndexSlot() {
+    return _indexSlot;
+  }
+  
+  /**
+  Slot in the agent index of the world setter. Only the index sets it.
+  **/
+  public void setIndexSlot(int indexSlot) {
+    _indexSlot = indexSlot;
+  }
+  
+  /**
+  Draw the agent between its positions before and after the last tick, as far as the frame is into the next tick
   **/
   public void draw(View view) {
-    CoordinateInt position = view.convert(_position);
+    CoordinateInt position = view.convert(_previousPosition, _position, _screenPosition);
     
     // angle to draw sprite. if we have reached the destination, use the last angle to avoid the agent facing the direction of atan2(0, 0) + PI/2
     float theta;
-    if (_direction.magnitude() == 0) {
+    if (_direction.squaredMagnitude() == 0) {
       theta = _lastTheta;
     }
     else {
@@ -96,12 +133,7 @@ public abstract class Agent implements Drawable {
     }
     _lastTheta = theta;
     
-    // draw the sprite
-    pushMatrix();
-    translate(position.getX(), position.getY());
-    rotate(theta);
-    imageMode(CENTER);
-    image(_image, 0, 0);
-    popMatrix();
+    // draw the sprite with the others of the frame
+    view.getSpriteBatch().add(_image, position.getX(), position.getY(), theta);
   }
 }
@@ -0,0 +1,210 @@
+/**
+Spatial hash of the agents of a world on its grid. Each square keeps a list of the agents on it, so finding who is on a square takes constant time,
+and finding who is near a position only looks at the squares around it, however many agents there are.
+The lists are linked through arrays by slot, one slot per agent, and an agent knows its slot. Agents update their square when they move (see Agent.move()).
+Moving and querying don't allocate. Only adding more agents than ever before grows the arrays.
+**/
+public class AgentIndex {
+
+  private World _world;
+  private int _width;
+  private int _height;
+  private int[] _heads; // first slot by square. -1 if no agent is on it
+  private Agent[] _agents; // agent by slot
+  private int[] _squares; // square by slot
+  private int[] _next; // next slot on the same square. -1 at the end of the list
+  private int[] _previous; // previous slot on the same square. -1 at the head of the list
+  private int _count;
+
+  /**
+  Constructor
+  **/
+  public AgentIndex(World world) {
+    _world = world;
+    _width = world.getGridSize().getX();
+    _height = world.getGridSize().getY();
+    _heads = new int[_width * _height];
+    Arrays.fill(_heads, -1);
+    _agents = new Agent[16];
+    _squares = new int[16];
+    _next = new int[16];
+    _previous = new int[16];
+    _count = 0;
+  }
+
+  /**
+  Add an agent on the square of its position. Agents that are already in the index stay where they are.
+  **/
+  public void add(Agent agent) {
+    if (contains(agent)) {
+      return;
+    }
+    if (_count == _agents.length) {
+      int size = 2 * _count;
+      _agents = Arrays.copyOf(_agents, size);
+      _squares = Arrays.copyOf(_squares, size);
+      _next = Arrays.copyOf(_next, size);
+      _previous = Arrays.copyOf(_previous, size);
+    }
+    int slot = _count++;
+    _agents[slot] = agent;
+    agent.setIndexSlot(slot);
+    link(slot, _world.positionToNode(agent.getPosition()));
+  }
+
+  /**
+  Take an agent out of the index. The last slot is moved into its slot, so the slots stay packed.
+  **/
+  public void remove(Agent agent) {
+    if (!contains(agent)) {
+      return;
+    }
+    int slot = agent.getIndexSlot();
+    unlink(slot);
+    agent.setIndexSlot(-1);
+    int last = --_count;
+    if (slot != last) {
+      // move the last agent into the free slot
+      int square = _squares[last];
+      unlink(last);
+      _agents[slot] = _agents[last];
+      _agents[slot].setIndexSlot(slot);
+      link(slot, square);
+    }
+    _agents[last] = null;
+  }
+
+  /**
+  Take all the agents out of the index
+  **/
+  public void clear() {
+    for (int slot = 0; slot < _count; slot++) {
+      _heads[_squares[slot]] = -1;
+      _agents[slot].setIndexSlot(-1);
+      _agents[slot] = null;
+    }
+    _count = 0;
+  }
+
+  /**
+  Move an agent to the square of its position, if it changed. Agents that are not in the index are ignored.
+  **/
+  public void update(Agent agent) {
+    if (!contains(agent)) {
+      return;
+    }
+    int slot = agent.getIndexSlot();
+    int square = _world.positionToNode(agent.getPosition());
+    if (square != _squares[slot]) {
+      unlink(slot);
+      link(slot, square);
+    }
+  }
+
+  /**
+  Tell if an agent is in the index
+  **/
+  public boolean contains(Agent agent) {
+    int slot = agent.getIndexSlot();
+    return slot >= 0 && slot < _count && _agents[slot] == agent;
+  }
+
+  /**
+  Number of agents in the index
+  **/
+  public int size() {
+    return _count;
+  }
+
+  /**
+  Square (y * width + x) an agent is on. -1 if it is not in the index.
+  **/
+  public int getSquare(Agent agent) {
+    return contains(agent) ? _squares[agent.getIndexSlot()] : -1;
+  }
+
+  /**
+  Slot of the first agent on a square, -1 if there is none. Together with next() and getAgent(), this goes through the agents on a square without allocating:
+  for (int slot = index.first(square); slot != -1; slot = index.next(slot))
+  **/
+  public int first(int square) {
+    return _heads[square];
+  }
+
+  /**
+  Slot of the next agent on the same square, -1 after the last one
+  **/
+  public int next(int slot) {
+    return _next[slot];
+  }
+
+  /**
+  Agent in a slot
+  **/
+  public Agent getAgent(int slot) {
+    return _agents[slot];
+  }
+
+  /**
+  One of the agents on a square, or null if there is none
+  **/
+  public Agent getAgentAt(int x, int y) {
+    int slot = _heads[y * _width + x];
+    return slot != -1 ? _agents[slot] : null;
+  }
+
+  /**
+  Add the agents within a distance of a world position to a list. Only the squares overlapping the circle are looked at. Returns the number of agents added.
+  **/
+  public int collectWithin(CoordinateDouble center, double radius, ArrayList<Agent> result) {
+    CoordinateDouble tileSize = _world.getTileSize();
+    int x0 = Math.max(0, (int) Math.floor((center.getX() - radius) / tileSize.getX()));
+    int y0 = Math.max(0, (int) Math.floor((center.getY() - radius) / tileSize.getY()));
+    int x1 = Math.min(_width - 1, (int) Math.floor((center.getX() + radius) / tileSize.getX()));
+    int y1 = Math.min(_height - 1, (int) Math.floor((center.getY() + radius) / tileSize.getY()));
+    double squaredRadius = radius * radius;
+    int added = 0;
+    for (int y = y0; y <= y1; y++) {
+      for (int x = x0; x <= x1; x++) {
+        for (int slot = _heads[y * _width + x]; slot != -1; slot = _next[slot]) {
+          if (_agents[slot].getPosition().squaredDistance(center) <= squaredRadius) {
+            result.add(_agents[slot]);
+            added++;
+          }
+        }
+      }
+    }
+    return added;
+  }
+
+  /**
+  Put a slot at the head of the list of a square
+  **/
+  private void link(int slot, int square) {
+    int head = _heads[square];
+    _squares[slot] = square;
+    _previous[slot] = -1;
+    _next[slot] = head;
+    if (head != -1) {
+      _previous[head] = slot;
+    }
+    _heads[square] = slot;
+  }
+
+  /**
+  Take a slot out of the list of its square
+  **/
+  private void unlink(int slot) {
+    int previous = _previous[slot];
+    int next = _next[slot];
+    if (previous != -1) {
+      _next[previous] = next;
+    }
+    else {
+      _heads[_squares[slot]] = next;
+    }
+    if (next != -1) {
+      _previous[next] = previous;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+import java.util.Arrays;
+
+/**
+Checks that the ticks of a game allocate no memory once it is warmed up, so the garbage collector never interrupts a running game.
+Each search mode plays seeded games with the hero heading for the goal. The same games are played again after warming up on them, so every path
+through the code has been taken before the bytes allocated by their ticks are counted. Starting a game and its first tick allocate and are not counted.
+It is started by running the sketch with the --allocations argument and exits with status 1 if any tick allocated. Further arguments override the defaults, e.g.
+--allocations warmup=1 games=50 grids=32x24,256x256
+**/
+public class AllocationCheck {
+
+  private final long _SEED = 20140202;
+  private final int _MAX_TICKS = 5000;
+
+  private int _warmupRounds; // times the games are played before they are counted
+  private int _games;
+  private ArrayList<CoordinateInt> _grids;
+  private AllocationCounter _allocations;
+
+  /**
+  Constructor. Takes the command line arguments of the sketch.
+  **/
+  public AllocationCheck(String[] args) {
+    _warmupRounds = 1;
+    _games = 50;
+    _grids = new ArrayList<CoordinateInt>();
+    _grids.add(new CoordinateInt(GRID_SIZE_X, GRID_SIZE_Y));
+    _grids.add(new CoordinateInt(256, 256));
+
+    // override the defaults from the command line
+    for (String arg : args) {
+      String[] pair = split(arg, '=');
+      if (pair.length != 2) {
+        continue;
+      }
+      if (pair[0].equals("warmup")) {
+        _warmupRounds = Integer.parseInt(pair[1]);
+      }
+      else if (pair[0].equals("games")) {
+        _games = Integer.parseInt(pair[1]);
+      }
+      else if (pair[0].equals("grids")) {
+        _grids = parseGrids(pair[1]);
+      }
+    }
+
+    _allocations = new AllocationCounter();
+    if (!_allocations.isSupported()) {
+      throw new IllegalStateException("This JVM can't count the bytes allocated by a thread");
+    }
+  }
+
+  /**
+  Play the games of all the search modes on all the grids and print the bytes allocated per tick. Returns whether no tick allocated.
+  **/
+  public boolean run() {
+    int[] modes = { SEARCH_INCREMENTAL, SEARCH_ASTAR, SEARCH_JPS, SEARCH_JPS_PLUS, SEARCH_HIERARCHICAL, SEARCH_FLOW_FIELDS, SEARCH_SCHEDULED };
+    String[] names = { "incremental", "A*", "JPS", "JPS+", "hierarchical", "flow fields", "scheduled" };
+    boolean passed = true;
+    println(String.format("%-14s %11s %10s %14s %14s", "Search", "Grid", "Ticks", "Bytes", "Max B/tick"));
+    for (CoordinateInt grid : _grids) {
+      for (int i = 0; i < modes.length; i++) {
+        passed &= check(names[i], modes[i], grid);
+      }
+    }
+    println(passed ? "PASSED: no tick allocated" : "FAILED: some ticks allocated");
+    return passed;
+  }
+
+  /**
+  Warm up and count the allocations of one search mode on one grid size. Returns whether no tick allocated.
+  The counted games are played twice, and a game only counts as allocating if it did both times. The code of the game allocates the same way every time the same game is played,
+  while the JVM allocates a few hundred bytes on its own now and then, e.g. when compiled code falls back to the interpreter.
+  **/
+  private boolean check(String name, int mode, CoordinateInt grid) {
+    // the world keeps the tile size of the sketch and the density of obstacles of a game
+    double tileWidth = WORLD_SIZE_X / (double) GRID_SIZE_X;
+    double tileHeight = WORLD_SIZE_Y / (double) GRID_SIZE_Y;
+    World world = new World(grid.getX() * tileWidth, grid.getY() * tileHeight, grid.getX(), grid.getY(), null);
+    Settings settings = new Settings();
+    settings.setNumObstacles((int) ((long) grid.getX() * grid.getY() * NUM_OBSTACLES / (GRID_SIZE_X * GRID_SIZE_Y)));
+    settings.setHunterSearchMode(mode);
+    Simulation simulation = new Simulation(world, settings);
+
+    long ticks = 0;
+    long[] bytes = new long[_games]; // by game, the least of the counted rounds
+    long[] maxBytes = new long[_games];
+    Arrays.fill(bytes, Long.MAX_VALUE);
+    Arrays.fill(maxBytes, Long.MAX_VALUE);
+    for (int round = 0; round < _warmupRounds + 2; round++) {
+      boolean counted = round >= _warmupRounds;
+      world.getRandom().setSeed(_SEED);
+      for (int game = 0; game < _games; game++) {
+        simulation.newGame(null);
+        simulation.getHero().setDestination(simulation.getRules().getGoal());
+        long gameBytes = 0;
+        long gameMaxBytes = 0;
+        while (simulation.getState() == PLAYING && simulation.getTick() < _MAX_TICKS) {
+          long before = _allocations.getAllocatedBytes();
+          simulation.step();
+          long allocated = _allocations.getAllocatedBytes() - before;
+          // the first tick brings the world up to date with the new obstacles and sizes the searches of the new hunters
+          if (counted && simulation.getTick() > 1) {
+            gameBytes += allocated;
+            gameMaxBytes = Math.max(gameMaxBytes, allocated);
+          }
+        }
+        if (counted) {
+          ticks += simulation.getTick() - 1;
+          bytes[game] = Math.min(bytes[game], gameBytes);
+          maxBytes[game] = Math.min(maxBytes[game], gameMaxBytes);
+        }
+      }
+    }
+    simulation.shutdown();
+
+    long totalBytes = 0;
+    long totalMaxBytes = 0;
+    for (int game = 0; game < _games; game++) {
+      totalBytes += bytes[game];
+      totalMaxBytes = Math.max(totalMaxBytes, maxBytes[game]);
+    }
+    println(String.format("%-14s %11s %10d %14d %14d", name, grid.getX() + "x" + grid.getY(), ticks / 2, totalBytes, totalMaxBytes));
+    return totalBytes == 0;
+  }
+}
@@ -0,0 +1,36 @@
+import java.lang.management.ManagementFactory;
+
+/**
+Counts the bytes allocated by the current thread, for the tools that check or report allocations (BenchmarkRunner, AllocationCheck and FrameProfiler).
+Allocation counting is a HotSpot extension. Where the JVM can't count, isSupported() tells so and every thread reads as having allocated nothing.
+Reading the count doesn't allocate, so it can be taken around code that must not allocate either.
+**/
+public class AllocationCounter {
+
+  private com.sun.management.ThreadMXBean _threads; // null if the JVM can't count the allocated bytes
+
+  /**
+  Constructor. Turns the counting on if the JVM can count.
+  **/
+  public AllocationCounter() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+      _threads = (com.sun.management.ThreadMXBean) threads;
+      _threads.setThreadAllocatedMemoryEnabled(true);
+    }
+  }
+
+  /**
+  Query if the JVM can count the bytes allocated by a thread
+  **/
+  public boolean isSupported() {
+    return _threads != null;
+  }
+
+  /**
+  Bytes allocated by the current thread since it started. 0 if the JVM can't count them.
+  **/
+  public long getAllocatedBytes() {
+    return _threads != null ? _threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+  }
+}
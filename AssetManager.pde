@@ -0,0 +1,110 @@
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+Loads the images of the sketch once and hands out the same PImage objects to whoever asks, so starting a new game reads and decodes nothing.
+All the images are requested at once when the manager is created and decoded in parallel on background threads, while the sketch goes on setting up.
+Asking for an image waits until it is decoded. Images that were not requested up front are loaded on the first request.
+**/
+public class AssetManager {
+
+  private ExecutorService _executor; // shut down once everything requested is loaded
+  private HashMap<String, Future<PImage>> _pending; // by file, images still being loaded
+  private HashMap<String, PImage> _images; // by file, images loaded
+  private HashMap<String, PImage[]> _sprites; // by file, images cut into animation sprites
+
+  /**
+  Constructor. Starts loading the images in the background.
+  **/
+  public AssetManager(String[] files) {
+    _pending = new HashMap<String, Future<PImage>>();
+    _images = new HashMap<String, PImage>();
+    _sprites = new HashMap<String, PImage[]>();
+    _executor = Executors.newFixedThreadPool(Math.max(1, Math.min(files.length, Runtime.getRuntime().availableProcessors())), new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        // don't keep the sketch alive when it exits
+        Thread thread = new Thread(runnable, "image loading");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    for (final String file : files) {
+      _pending.put(file, _executor.submit(new Callable<PImage>() {
+        public PImage call() {
+          return loadImage(file);
+        }
+      }));
+    }
+  }
+
+  /**
+  Image of a file. Waits until it is loaded if it is still loading. Every call for the same file returns the same image, so it must not be changed.
+  **/
+  public PImage getImage(String file) {
+    PImage image = _images.get(file);
+    if (image != null) {
+      return image;
+    }
+    Future<PImage> pending = _pending.remove(file);
+    if (pending != null) {
+      try {
+        image = pending.get();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+      catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+    else {
+      image = loadImage(file);
+    }
+    if (image == null) {
+      throw new IllegalStateException("Could not load image " + file);
+    }
+    _images.put(file, image);
+    if (_pending.isEmpty() && _executor != null) {
+      // nothing left to load in the background
+      _executor.shutdown();
+      _executor = null;
+    }
+    return image;
+  }
+
+  /**
+  Sprites of an animation, cut from an image of a file holding them side by side. They are cut on the first call and shared afterwards.
+  **/
+  public PImage[] getSprites(String file, int count) {
+    PImage[] sprites = _sprites.get(file);
+    if (sprites != null && sprites.length == count) {
+      return sprites;
+    }
+    PImage image = getImage(file);
+    int spriteWidth = image.width / count;
+    sprites = new PImage[count];
+    for (int i = 0; i < count; i++) {
+      sprites[i] = image.get(i * spriteWidth, 0, spriteWidth, image.height);
+    }
+    _sprites.put(file, sprites);
+    return sprites;
+  }
+
+  /**
+  Tell if all the images requested up front are loaded, i.e. asking for them won't wait
+  **/
+  public boolean isLoaded() {
+    for (Future<PImage> pending : _pending.values()) {
+      if (!pending.isDone()) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,91 @@
+/**
+Render cache for the tiles of the world. They are composited once into an off-screen image of the size of the screen, and a frame draws that image
+with a single image() call instead of one per tile. The background doesn't change during a game, so this is only redone for the tiles marked as dirty,
+or for all of them when the size of the screen changes.
+**/
+public class BackgroundLayer {
+
+  private Tile[][] _tiles;
+  private PGraphics _graphics; // only created when first drawn
+  private boolean _allDirty;
+  private boolean[][] _dirty;
+  private int[] _dirtyTiles; // x and y of each dirty tile
+  private int _dirtyCount;
+
+  /**
+  Constructor. Everything is composited on the first draw.
+  **/
+  public BackgroundLayer(Tile[][] tiles) {
+    _tiles = tiles;
+    _dirty = new boolean[tiles.length][tiles.length > 0 ? tiles[0].length : 0];
+    _dirtyTiles = new int[16];
+    _dirtyCount = 0;
+    _allDirty = true;
+  }
+
+  /**
+  Composite a tile again before the next draw, e.g. because its image changed
+  **/
+  public void markDirty(int x, int y) {
+    if (_allDirty || _dirty[x][y]) {
+      return;
+    }
+    _dirty[x][y] = true;
+    if (2 * _dirtyCount == _dirtyTiles.length) {
+      _dirtyTiles = Arrays.copyOf(_dirtyTiles, 2 * _dirtyTiles.length);
+    }
+    _dirtyTiles[2 * _dirtyCount] = x;
+    _dirtyTiles[2 * _dirtyCount + 1] = y;
+    _dirtyCount++;
+  }
+
+  /**
+  Composite all the tiles again before the next draw
+  **/
+  public void markAllDirty() {
+    _allDirty = true;
+  }
+
+  /**
+  Draw the background, compositing the dirty tiles first
+  **/
+  public void draw(View view) {
+    if (_graphics == null || _graphics.width != width || _graphics.height != height) {
+      _graphics = createGraphics(width, height);
+      _allDirty = true;
+    }
+    if (_allDirty || _dirtyCount > 0) {
+      composite(view);
+    }
+    imageMode(CORNER);
+    image(_graphics, 0, 0);
+  }
+
+  /**
+  Draw the dirty tiles into the off-screen image
+  **/
+  private void composite(View view) {
+    _graphics.beginDraw();
+    if (_allDirty) {
+      _graphics.background(0);
+      for (int x = 0; x < _tiles.length; x++) {
+        for (int y = 0; y < _tiles[x].length; y++) {
+          _tiles[x][y].draw(_graphics, view);
+        }
+      }
+    }
+    else {
+      for (int i = 0; i < _dirtyCount; i++) {
+        _tiles[_dirtyTiles[2 * i]][_dirtyTiles[2 * i + 1]].draw(_graphics, view);
+      }
+    }
+    _graphics.endDraw();
+
+    // nothing is dirty anymore
+    for (int i = 0; i < _dirtyCount; i++) {
+      _dirty[_dirtyTiles[2 * i]][_dirtyTiles[2 * i + 1]] = false;
+    }
+    _dirtyCount = 0;
+    _allDirty = false;
+  }
+}
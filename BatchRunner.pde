@@ -0,0 +1,164 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+Plays many seeded games without a window on all the cores and prints win and loss rates, the distribution of the time to capture and the games per second.
+The hero is steered by a scripted policy instead of the mouse. Useful to tune the number of obstacles and the speeds.
+It is started by running the sketch with the --batch argument. Further arguments override the defaults, e.g.
+--batch games=1000000 policy=evasive threads=8 seed=1 maxTicks=5000 obstacles=40 hero=2.0 follower=1.2 interceptor=1.1 routeCutter=1.0
+The policies are straight (click on the goal once), path (follow a shortest path to the goal) and evasive (like path, but step away from close hunters).
+**/
+public class BatchRunner {
+
+  private long _games;
+  private String _policy;
+  private int _threads;
+  private long _seed;
+  private int _maxTicks;
+  private Settings _settings;
+
+  /**
+  Constructor. Takes the command line arguments of the sketch.
+  **/
+  public BatchRunner(String[] args) {
+    _games = 10000;
+    _policy = "path";
+    _threads = Runtime.getRuntime().availableProcessors();
+    _seed = 1;
+    _maxTicks = 5000;
+    _settings = new Settings();
+
+    // override the defaults from the command line
+    for (String arg : args) {
+      String[] pair = split(arg, '=');
+      if (pair.length != 2) {
+        continue;
+      }
+      if (pair[0].equals("games")) {
+        _games = Long.parseLong(pair[1]);
+      }
+      else if (pair[0].equals("policy")) {
+        _policy = pair[1];
+      }
+      else if (pair[0].equals("threads")) {
+        _threads = Integer.parseInt(pair[1]);
+      }
+      else if (pair[0].equals("seed")) {
+        _seed = Long.parseLong(pair[1]);
+      }
+      else if (pair[0].equals("maxTicks")) {
+        _maxTicks = Integer.parseInt(pair[1]);
+      }
+      else if (pair[0].equals("obstacles")) {
+        _settings.setNumObstacles(Integer.parseInt(pair[1]));
+      }
+      else if (pair[0].equals("hero")) {
+        _settings.setHeroSpeed(Double.parseDouble(pair[1]));
+      }
+      else if (pair[0].equals("follower")) {
+        _settings.setFollowerSpeed(Double.parseDouble(pair[1]));
+      }
+      else if (pair[0].equals("interceptor")) {
+        _settings.setInterceptorSpeed(Double.parseDouble(pair[1]));
+      }
+      else if (pair[0].equals("routeCutter")) {
+        _settings.setRouteCutterSpeed(Double.parseDouble(pair[1]));
+      }
+    }
+    // fail before starting the workers if the policy is unknown
+    createPolicy();
+  }
+
+  /**
+  Play all the games and print the statistics
+  **/
+  public void run() {
+    println("Playing " + _games + " games with the " + _policy + " policy on " + _threads + " threads");
+    long start = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(_threads);
+    ArrayList<BatchWorker> workers = new ArrayList<BatchWorker>();
+    for (int i = 0; i < _threads; i++) {
+      workers.add(new BatchWorker(this, i, _threads));
+    }
+    BatchStatistics statistics = new BatchStatistics(_maxTicks);
+    try {
+      for (Future<BatchStatistics> future : executor.invokeAll(workers)) {
+        statistics.merge(future.get());
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+    finally {
+      executor.shutdown();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    report(statistics, seconds);
+  }
+
+  /**
+  Print the statistics of the run
+  **/
+  private void report(BatchStatistics statistics, double seconds) {
+    double games = statistics.getGames();
+    println(String.format("won        %10d  %6.2f%%  mean %8.1f ticks", statistics.getWon(), 100 * statistics.getWon() / games, statistics.getMeanWinTicks()));
+    println(String.format("lost       %10d  %6.2f%%  mean %8.1f ticks", statistics.getLost(), 100 * statistics.getLost() / games, statistics.getMeanCaptureTicks()));
+    println(String.format("unfinished %10d  %6.2f%%  after %d ticks", statistics.getUnfinished(), 100 * statistics.getUnfinished() / games, _maxTicks));
+    if (statistics.getLost() > 0) {
+      println(String.format("time to capture in ticks: p10 %d  p25 %d  p50 %d  p75 %d  p90 %d  p99 %d",
+        statistics.getCapturePercentile(0.10), statistics.getCapturePercentile(0.25), statistics.getCapturePercentile(0.50),
+        statistics.getCapturePercentile(0.75), statistics.getCapturePercentile(0.90), statistics.getCapturePercentile(0.99)));
+    }
+    println(String.format("%.1f s, %.1f games/s, %.0f ticks/s", seconds, games / seconds, statistics.getTicks() / seconds));
+  }
+
+  /**
+  New hero policy of the kind chosen on the command line
+  **/
+  public HeroPolicy createPolicy() {
+    if (_policy.equals("straight")) {
+      return new StraightHeroPolicy();
+    }
+    if (_policy.equals("path")) {
+      return new PathHeroPolicy();
+    }
+    if (_policy.equals("evasive")) {
+      return new EvasiveHeroPolicy();
+    }
+    throw new IllegalArgumentException("Unknown hero policy " + _policy);
+  }
+
+  /**
+  Number of games getter
+  **/
+  public long getGames() {
+    return _games;
+  }
+
+  /**
+  Seed getter. Game number i is seeded with it plus i.
+  **/
+  public long getSeed() {
+    return _seed;
+  }
+
+  /**
+  Maximum ticks per game getter
+  **/
+  public int getMaxTicks() {
+    return _maxTicks;
+  }
+
+  /**
+  Settings getter. The workers only read them.
+  **/
+  public Settings getSettings() {
+    return _settings;
+  }
+}
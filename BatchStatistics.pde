@@ -0,0 +1,131 @@
+/**
+Outcomes of a number of games: how many were won, lost or not finished, and how many ticks they took.
+Every batch worker keeps its own, and they are merged at the end.
+**/
+public class BatchStatistics {
+
+  private int[] _wonTicks; // histogram of the ticks of the won games
+  private int[] _lostTicks; // histogram of the ticks of the lost games, i.e. the time to capture
+  private long _won;
+  private long _lost;
+  private long _unfinished;
+  private long _ticks;
+
+  /**
+  Constructor. Games take at most maxTicks ticks.
+  **/
+  public BatchStatistics(int maxTicks) {
+    _wonTicks = new int[maxTicks + 1];
+    _lostTicks = new int[maxTicks + 1];
+  }
+
+  /**
+  Count a game with its final state and number of ticks
+  **/
+  public void add(int state, int ticks) {
+    if (state == WON) {
+      _won++;
+      _wonTicks[ticks]++;
+    }
+    else if (state == LOST) {
+      _lost++;
+      _lostTicks[ticks]++;
+    }
+    else {
+      _unfinished++;
+    }
+    _ticks += ticks;
+  }
+
+  /**
+  Add the games of other statistics to these
+  **/
+  public void merge(BatchStatistics other) {
+    for (int i = 0; i < _wonTicks.length; i++) {
+      _wonTicks[i] += other._wonTicks[i];
+      _lostTicks[i] += other._lostTicks[i];
+    }
+    _won += other._won;
+    _lost += other._lost;
+    _unfinished += other._unfinished;
+    _ticks += other._ticks;
+  }
+
+  /**
+  Number of games
+  **/
+  public long getGames() {
+    return _won + _lost + _unfinished;
+  }
+
+  /**
+  Won games getter
+  **/
+  public long getWon() {
+    return _won;
+  }
+
+  /**
+  Lost games getter
+  **/
+  public long getLost() {
+    return _lost;
+  }
+
+  /**
+  Unfinished games getter, i.e. games that ran out of ticks
+  **/
+  public long getUnfinished() {
+    return _unfinished;
+  }
+
+  /**
+  Ticks of all the games
+  **/
+  public long getTicks() {
+    return _ticks;
+  }
+
+  /**
+  Mean time to capture in ticks over the lost games. 0 if none was lost.
+  **/
+  public double getMeanCaptureTicks() {
+    return mean(_lostTicks, _lost);
+  }
+
+  /**
+  Mean time to reach the goal in ticks over the won games. 0 if none was won.
+  **/
+  public double getMeanWinTicks() {
+    return mean(_wonTicks, _won);
+  }
+
+  /**
+  Time to capture in ticks that the given fraction (0 to 1) of the lost games did not exceed
+  **/
+  public int getCapturePercentile(double fraction) {
+    long rank = (long) Math.ceil(fraction * _lost);
+    long count = 0;
+    for (int ticks = 0; ticks < _lostTicks.length; ticks++) {
+      count += _lostTicks[ticks];
+      if (count >= Math.max(1L, rank)) {
+        return ticks;
+      }
+    }
+    return 0;
+  }
+
+  /**
+  Mean of a histogram of ticks
+  **/
+  private double mean(int[] histogram, long games) {
+    if (games == 0) {
+      return 0;
+    }
+    double sum = 0;
+    for (int ticks = 0; ticks < histogram.length; ticks++) {
+      sum += (double) ticks * histogram[ticks];
+    }
+    return sum / games;
+  }
+}
@@ -0,0 +1,42 @@
+import java.util.concurrent.Callable;
+
+/**
+Plays a share of the games of a batch run on its own thread. It shares nothing with the other workers: every game gets a new world with its own random generator, rules and policy.
+Game number i is seeded with the seed of the batch plus i, so each game plays the same however many workers there are.
+**/
+public class BatchWorker implements Callable<BatchStatistics> {
+
+  private BatchRunner _runner;
+  private int _worker;
+  private int _workers;
+
+  /**
+  Constructor. The worker plays the games with number worker, worker + workers, worker + 2 * workers, ...
+  **/
+  public BatchWorker(BatchRunner runner, int worker, int workers) {
+    _runner = runner;
+    _worker = worker;
+    _workers = workers;
+  }
+
+  /**
+  Play all the games of this worker
+  **/
+  public BatchStatistics call() {
+    BatchStatistics statistics = new BatchStatistics(_runner.getMaxTicks());
+    for (long game = _worker; game < _runner.getGames(); game += _workers) {
+      World world = new World(WORLD_SIZE_X, WORLD_SIZE_Y, GRID_SIZE_X, GRID_SIZE_Y, null);
+      world.getRandom().setSeed(_runner.getSeed() + game);
+      Simulation simulation = new Simulation(world, _runner.getSettings());
+      simulation.newGame(null);
+      HeroPolicy policy = _runner.createPolicy();
+      policy.start(simulation);
+      while (simulation.getState() == PLAYING && simulation.getTick() < _runner.getMaxTicks()) {
+        policy.steer(simulation);
+        simulation.step();
+      }
+      statistics.add(simulation.getState(), simulation.getTick());
+    }
+    return statistics;
+  }
+}
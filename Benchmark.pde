@@ -0,0 +1,56 @@
+/**
+Parent class for the micro benchmarks run by the BenchmarkRunner. A benchmark prepares its state once per parameter combination and then has its operation measured many times.
+**/
+public abstract class Benchmark {
+
+  private String _name;
+
+  /**
+  Constructor
+  **/
+  public Benchmark(String name) {
+    _name = name;
+  }
+
+  /**
+  Name getter
+  **/
+  public String getName() {
+    return _name;
+  }
+
+  /**
+  Tell if the benchmark draws and therefore needs a world with tiles and a window. Such benchmarks are skipped on grids too big to slice the background image for.
+  **/
+  public boolean needsTiles() {
+    return false;
+  }
+
+  /**
+  Prepare the state for the measured operation. The simulation has a new game loaded. Not measured.
+  **/
+  public abstract void setUp(Simulation simulation, View view);
+
+  /**
+  Pick random walkable squares as node ids, e.g. as start and goal of searches. Uses the random generator of the world, so they are the same for every run.
+  **/
+  protected int[] randomWalkableNodes(World world, int count) {
+    int[] nodes = new int[count];
+    int width = world.getGridSize().getX();
+    int height = world.getGridSize().getY();
+    for (int i = 0; i < count; i++) {
+      int x, y;
+      do {
+        x = world.getRandom().nextInt(width);
+        y = world.getRandom().nextInt(height);
+      } while (!world.isWalkable(x, y));
+      nodes[i] = y * width + x;
+    }
+    return nodes;
+  }
+
+  /**
+  The measured operation. It returns some value depending on its work, so the JIT can't remove it as dead code.
+  **/
+  public abstract int operation();
+}
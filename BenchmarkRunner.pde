@@ -0,0 +1,197 @@
+/**
+Runs the micro benchmarks of the tick and draw hot paths over several grid sizes and obstacle densities, and prints ns/op and allocated bytes/op.
+Every combination gets a freshly loaded, seeded game, a few warmup iterations for the JIT and then the measured iterations.
+It is started by running the sketch with the --benchmark argument. Further arguments override the defaults, e.g.
+--benchmark grids=32x24,1024x1024 densities=5,40 only=Hunter.doSomething warmup=3 iterations=5 time=200 threads=4
+**/
+public class BenchmarkRunner {
+
+  private final long _SEED = 20140202;
+  private final int _MAX_TILES = 256 * 256; // drawing benchmarks need a tile per square. more than this would take forever to slice
+  private final long _BATCH_NANOS = 1000000; // operations are run in batches of about this duration between two reads of the clock
+
+  private ArrayList<Benchmark> _benchmarks;
+  private ArrayList<CoordinateInt> _grids;
+  private int[] _densities; // in percent of the squares
+  private String _only;
+  private int _warmupIterations;
+  private int _iterations;
+  private long _iterationNanos;
+  private int _planningThreads;
+  private AllocationCounter _allocations;
+  private int _sink; // results of the operations end up here, so they can't be optimized away
+
+  /**
+  Constructor. Takes the command line arguments of the sketch.
+  **/
+  public BenchmarkRunner(String[] args) {
+    _benchmarks = new ArrayList<Benchmark>();
+    _benchmarks.add(new BuildGraphBenchmark());
+    _benchmarks.add(new PositionObstaclesBenchmark());
+    _benchmarks.add(new HunterBenchmark());
+    _benchmarks.add(new PlanHuntersBenchmark());
+    _benchmarks.add(new SearchBenchmark());
+    _benchmarks.add(new JumpPointSearchBenchmark(false));
+    _benchmarks.add(new JumpPointSearchBenchmark(true));
+    _benchmarks.add(new HierarchicalSearchBenchmark());
+    _benchmarks.add(new LibrarySearchBenchmark());
+    _benchmarks.add(new DistanceFieldBenchmark());
+    _benchmarks.add(new MoveBenchmark());
+    _benchmarks.add(new CheckLostBenchmark());
+    _benchmarks.add(new ObstacleChangeBenchmark());
+    _benchmarks.add(new SwarmBenchmark(5000, SEARCH_FLOW_FIELDS));
+    _benchmarks.add(new SwarmBenchmark(300, SEARCH_SCHEDULED));
+    _benchmarks.add(new DrawWorldBenchmark(false));
+    _benchmarks.add(new DrawWorldBenchmark(true));
+
+    // defaults go from the size of the game to huge maps
+    _grids = new ArrayList<CoordinateInt>();
+    _grids.add(new CoordinateInt(GRID_SIZE_X, GRID_SIZE_Y));
+    _grids.add(new CoordinateInt(256, 256));
+    _grids.add(new CoordinateInt(1024, 1024));
+    _grids.add(new CoordinateInt(4096, 4096));
+    _densities = new int[] { 5, 10, 20, 40 };
+    _only = null;
+    _warmupIterations = 3;
+    _iterations = 5;
+    _iterationNanos = 200000000L;
+    _planningThreads = 1;
+
+    // override the defaults from the command line
+    for (String arg : args) {
+      String[] pair = split(arg, '=');
+      if (pair.length != 2) {
+        continue;
+      }
+      if (pair[0].equals("grids")) {
+        _grids = parseGrids(pair[1]);
+      }
+      else if (pair[0].equals("densities")) {
+        _densities = parseInt(split(pair[1], ','));
+      }
+      else if (pair[0].equals("only")) {
+        _only = pair[1];
+      }
+      else if (pair[0].equals("warmup")) {
+        _warmupIterations = Integer.parseInt(pair[1]);
+      }
+      else if (pair[0].equals("iterations")) {
+        _iterations = Integer.parseInt(pair[1]);
+      }
+      else if (pair[0].equals("time")) {
+        _iterationNanos = Long.parseLong(pair[1]) * 1000000L;
+      }
+      else if (pair[0].equals("threads")) {
+        _planningThreads = Integer.parseInt(pair[1]);
+      }
+    }
+
+    // without allocation counting, bytes/op are reported as -1
+    _allocations = new AllocationCounter();
+  }
+
+  /**
+  Run all the benchmarks over all grid sizes and densities
+  **/
+  public void run() {
+    println(String.format("%-26s %11s %6s %16s %14s %14s", "Benchmark", "Grid", "Obst%", "ns/op", "Error", "B/op"));
+    for (Benchmark benchmark : _benchmarks) {
+      if (_only != null && !_only.equals(benchmark.getName())) {
+        continue;
+      }
+      for (CoordinateInt grid : _grids) {
+        for (int density : _densities) {
+          runCase(benchmark, grid, density);
+        }
+      }
+    }
+  }
+
+  /**
+  Run one benchmark for a grid size and density
+  **/
+  private void runCase(Benchmark benchmark, CoordinateInt grid, int density) {
+    String label = String.format("%-26s %11s %6d", benchmark.getName(), grid.getX() + "x" + grid.getY(), density);
+    if (benchmark.needsTiles() && (long) grid.getX() * grid.getY() > _MAX_TILES) {
+      println(label + "  skipped: too many tiles to draw");
+      return;
+    }
+
+    Simulation simulation = null;
+    try {
+      // create a fresh seeded game. the world keeps the tile size of the sketch
+      double tileWidth = WORLD_SIZE_X / (double) GRID_SIZE_X;
+      double tileHeight = WORLD_SIZE_Y / (double) GRID_SIZE_Y;
+      PImage backgroundImage = benchmark.needsTiles() ? loadImage(WORLD_IMAGE) : null;
+      World world = new World(grid.getX() * tileWidth, grid.getY() * tileHeight, grid.getX(), grid.getY(), backgroundImage);
+      world.getRandom().setSeed(_SEED);
+      Settings settings = new Settings();
+      settings.setNumObstacles((int) ((long) grid.getX() * grid.getY() * density / 100));
+      settings.setPlanningThreads(_planningThreads);
+      simulation = new Simulation(world, settings);
+      simulation.newGame(null);
+      View view = benchmark.needsTiles() ? new View(world) : null;
+      benchmark.setUp(simulation, view);
+
+      // warm up and find out how many operations fit in a batch
+      int batch = 1;
+      for (int i = 0; i < _warmupIterations; i++) {
+        long[] result = iteration(benchmark, batch);
+        double nanosPerOp = result[1] / (double) result[0];
+        batch = max(1, (int) min(1000000, _BATCH_NANOS / max(1, (float) nanosPerOp)));
+      }
+
+      // measure
+      double[] nanosPerOp = new double[_iterations];
+      long operations = 0;
+      long bytes = 0;
+      for (int i = 0; i < _iterations; i++) {
+        long[] result = iteration(benchmark, batch);
+        nanosPerOp[i] = result[1] / (double) result[0];
+        operations += result[0];
+        bytes += result[2];
+      }
+
+      // mean and standard deviation over the iterations
+      double mean = 0;
+      for (double value : nanosPerOp) {
+        mean += value;
+      }
+      mean /= _iterations;
+      double variance = 0;
+      for (double value : nanosPerOp) {
+        variance += (value - mean) * (value - mean);
+      }
+      double error = _iterations > 1 ? Math.sqrt(variance / (_iterations - 1)) : 0;
+      double bytesPerOp = _allocations.isSupported() ? bytes / (double) operations : -1;
+      println(label + String.format(" %16.1f %14.1f %14.1f", mean, error, bytesPerOp));
+    }
+    catch (OutOfMemoryError e) {
+      println(label + "  skipped: out of memory");
+    }
+    finally {
+      if (simulation != null) {
+        simulation.shutdown();
+      }
+    }
+  }
+
+  /**
+  Run operations in batches for the duration of one iteration. Returns the number of operations, the nanoseconds and the bytes allocated.
+  **/
+  private long[] iteration(Benchmark benchmark, int batch) {
+    long operations = 0;
+    long bytesStart = _allocations.getAllocatedBytes();
+    long start = System.nanoTime();
+    long elapsed;
+    do {
+      for (int i = 0; i < batch; i++) {
+        _sink ^= benchmark.operation();
+      }
+      operations += batch;
+      elapsed = System.nanoTime() - start;
+    } while (elapsed < _iterationNanos);
+    long bytes = _allocations.getAllocatedBytes() - bytesStart;
+    return new long[] { operations, elapsed, bytes };
+  }
+}
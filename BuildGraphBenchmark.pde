@@ -0,0 +1,29 @@
+/**
+Benchmark building the path finding graph from the walkable matrix
+**/
+public class BuildGraphBenchmark extends Benchmark {
+
+  private World _world;
+
+  /**
+  Constructor
+  **/
+  public BuildGraphBenchmark() {
+    super("World.buildGraph");
+  }
+
+  /**
+  Keep the world with the obstacles already placed
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _world = simulation.getWorld();
+  }
+
+  /**
+  Rebuild the graph
+  **/
+  public int operation() {
+    _world.buildGraph();
+    return _world.getGraph().getNbrNodes();
+  }
+}
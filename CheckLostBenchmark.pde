@@ -0,0 +1,28 @@
+/**
+Benchmark checking the losing condition
+**/
+public class CheckLostBenchmark extends Benchmark {
+
+  private Rules _rules;
+
+  /**
+  Constructor
+  **/
+  public CheckLostBenchmark() {
+    super("Rules.checkLost");
+  }
+
+  /**
+  Keep the rules of the game
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _rules = simulation.getRules();
+  }
+
+  /**
+  Check if a hunter caught the hero
+  **/
+  public int operation() {
+    return _rules.checkLost() ? 1 : 0;
+  }
+}
@@ -0,0 +1,131 @@
+/**
+Distances from a source square to the squares of a rectangle of the grid around it, computed with Dijkstra over the grid graph without leaving the rectangle.
+Used by the hierarchical search on the clusters of the cluster map, so its memory is as large as a cluster, not as the grid.
+**/
+public class ClusterDistances {
+
+  private GridGraph _graph;
+  private int _size; // largest side of a rectangle
+  private double[] _distances; // by local index. only valid for nodes with the current generation
+  private int[] _parents; // previous node on the shortest path by local index. only valid for nodes with the current generation
+  private int[] _generations; // _generation if the node has been reached, _generation + 1 if its distance is final
+  private int _generation;
+  private IndexedHeap _open; // local indices
+  private int _source;
+  private int _x0;
+  private int _y0;
+  private int _x1;
+  private int _y1;
+  private int[] _neighbors; // scratch space for the neighbors of a node
+  private double[] _costs; // scratch space for the costs to the neighbors of a node
+
+  /**
+  Constructor. The rectangles may have sides up to size squares.
+  **/
+  public ClusterDistances(World world, int size) {
+    _graph = world.getGridGraph();
+    _size = size;
+    _distances = new double[size * size];
+    _parents = new int[size * size];
+    _generations = new int[size * size];
+    _generation = 0;
+    _open = new IndexedHeap(size * size);
+    _source = -1;
+    _neighbors = new int[8];
+    _costs = new double[8];
+  }
+
+  /**
+  Compute the distances from the source to all the squares of the rectangle from x0, y0 to x1, y1 (both inclusive), which contains the source
+  **/
+  public void compute(int source, int x0, int y0, int x1, int y1) {
+    _generation += 2;
+    if (_generation >= Integer.MAX_VALUE - 2) {
+      Arrays.fill(_generations, 0);
+      _generation = 2;
+    }
+    _source = source;
+    _x0 = x0;
+    _y0 = y0;
+    _x1 = x1;
+    _y1 = y1;
+
+    int sourceIndex = index(source);
+    _distances[sourceIndex] = 0;
+    _parents[sourceIndex] = -1;
+    _generations[sourceIndex] = _generation;
+    _open.push(sourceIndex, 0, 0);
+    while (!_open.isEmpty()) {
+      int index = _open.pop();
+      _generations[index] = _generation + 1;
+      int node = node(index);
+      double distance = _distances[index];
+      int count = _graph.neighbors(node, _neighbors, _costs);
+      for (int i = 0; i < count; i++) {
+        int x = _graph.getX(_neighbors[i]);
+        int y = _graph.getY(_neighbors[i]);
+        if (x < _x0 || x > _x1 || y < _y0 || y > _y1) {
+          continue;
+        }
+        int neighbor = index(_neighbors[i]);
+        int generation = _generations[neighbor];
+        if (generation == _generation + 1 || (generation == _generation && distance + _costs[i] >= _distances[neighbor])) {
+          continue;
+        }
+        _distances[neighbor] = distance + _costs[i];
+        _parents[neighbor] = index;
+        _generations[neighbor] = _generation;
+        _open.push(neighbor, distance + _costs[i], 0);
+      }
+    }
+  }
+
+  /**
+  Source getter. -1 if nothing has been computed yet.
+  **/
+  public int getSource() {
+    return _source;
+  }
+
+  /**
+  Distance from the source to a node. Infinite if the node is outside the rectangle or can't be reached inside it.
+  **/
+  public double getDistance(int node) {
+    int x = _graph.getX(node);
+    int y = _graph.getY(node);
+    if (x < _x0 || x > _x1 || y < _y0 || y > _y1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    int index = index(node);
+    return _generations[index] == _generation + 1 ? _distances[index] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+  First node after the source on a shortest path inside the rectangle to a node. Returns -1 if the node is the source or can't be reached.
+  **/
+  public int firstStep(int to) {
+    if (to == _source || getDistance(to) == Double.POSITIVE_INFINITY) {
+      return -1;
+    }
+    int index = index(to);
+    int sourceIndex = index(_source);
+    while (_parents[index] != sourceIndex) {
+      index = _parents[index];
+    }
+    return node(index);
+  }
+
+  /**
+  Local index of a node inside the rectangle
+  **/
+  private int index(int node) {
+    return (_graph.getY(node) - _y0) * _size + _graph.getX(node) - _x0;
+  }
+
+  /**
+  Node of a local index
+  **/
+  private int node(int index) {
+    return _graph.node(_x0 + index % _size, _y0 + index / _size);
+  }
+}
@@ -0,0 +1,324 @@
+/**
+Abstraction of the grid for hierarchical path finding (HPA*, Botea, Müller and Schaeffer). The grid is divided into square clusters.
+Where two neighboring clusters have a run of walkable squares facing each other along their border, the run is an entrance, crossed at its middle or, if it is wide, at both ends.
+The squares at either side of a crossing are the nodes of the abstract graph. Nodes of neighboring clusters facing each other are connected with cost 1,
+and the nodes of a cluster are connected with each other by the length of their shortest path inside the cluster.
+Nodes are numbered from 0 and the nodes of a cluster have consecutive numbers. The numbers change when clusters are rebuilt.
+When squares change, only their clusters and the neighbors sharing the border are rebuilt, on the next call to update().
+**/
+public class ClusterMap {
+
+  private final int _MAX_ENTRANCE_WIDTH = 6; // runs at least this wide get a crossing at each end
+
+  private GridGraph _graph;
+  private int _clusterSize;
+  private int _clustersX;
+  private int _clustersY;
+  private int[][] _entrySquares; // squares of the nodes by cluster
+  private int[][] _entryPartners; // squares across the border facing the nodes by cluster
+  private double[][] _entryCosts; // costs between the nodes of a cluster, entries x entries by cluster. infinite if not connected inside the cluster
+  private boolean[] _dirty;
+  private boolean _anyDirty;
+  private int[] _firstNodes; // number of the first node by cluster
+  private int[] _nodeSquares; // square by node
+  private int[] _nodeClusters; // cluster by node
+  private int[] _nodePartners; // node facing across the border by node
+  private int _nodeCount;
+  private int _version;
+  private ClusterDistances _distances;
+
+  /**
+  Constructor. All clusters are built on the first update.
+  **/
+  public ClusterMap(World world, int clusterSize) {
+    _graph = world.getGridGraph();
+    _clusterSize = clusterSize;
+    _clustersX = (_graph.getWidth() + clusterSize - 1) / clusterSize;
+    _clustersY = (_graph.getHeight() + clusterSize - 1) / clusterSize;
+    int clusters = _clustersX * _clustersY;
+    _entrySquares = new int[clusters][];
+    _entryPartners = new int[clusters][];
+    _entryCosts = new double[clusters][];
+    _dirty = new boolean[clusters];
+    _firstNodes = new int[clusters + 1];
+    _nodeSquares = new int[0];
+    _nodeClusters = new int[0];
+    _nodePartners = new int[0];
+    _version = 0;
+    _distances = new ClusterDistances(world, clusterSize);
+    invalidate();
+  }
+
+  /**
+  Mark all the clusters to be rebuilt, e.g. because all the obstacles were placed again
+  **/
+  public void invalidate() {
+    Arrays.fill(_dirty, true);
+    _anyDirty = true;
+  }
+
+  /**
+  Mark the clusters that depend on a square to be rebuilt. Its own cluster, and the neighbor clusters if it lies on their border.
+  **/
+  public void invalidate(int x, int y) {
+    int cx = x / _clusterSize;
+    int cy = y / _clusterSize;
+    markDirty(cx, cy);
+    if (x % _clusterSize == 0) {
+      markDirty(cx - 1, cy);
+    }
+    if (x % _clusterSize == _clusterSize - 1) {
+      markDirty(cx + 1, cy);
+    }
+    if (y % _clusterSize == 0) {
+      markDirty(cx, cy - 1);
+    }
+    if (y % _clusterSize == _clusterSize - 1) {
+      markDirty(cx, cy + 1);
+    }
+  }
+
+  /**
+  Rebuild the clusters marked as dirty and number the nodes again. Does nothing if no cluster is dirty.
+  **/
+  public void update() {
+    if (!_anyDirty) {
+      return;
+    }
+    for (int cluster = 0; cluster < _dirty.length; cluster++) {
+      if (_dirty[cluster]) {
+        buildCluster(cluster);
+        _dirty[cluster] = false;
+      }
+    }
+    _anyDirty = false;
+    numberNodes();
+    _version++;
+  }
+
+  /**
+  Version getter. It changes whenever the abstract graph changes, so searches know when their cached distances are out of date.
+  **/
+  public int getVersion() {
+    return _version;
+  }
+
+  /**
+  Cluster size getter
+  **/
+  public int getClusterSize() {
+    return _clusterSize;
+  }
+
+  /**
+  Cluster of the square of a node of the grid graph
+  **/
+  public int getClusterOfSquare(int square) {
+    return (_graph.getY(square) / _clusterSize) * _clustersX + _graph.getX(square) / _clusterSize;
+  }
+
+  /**
+  Left x of a cluster
+  **/
+  public int getClusterX0(int cluster) {
+    return (cluster % _clustersX) * _clusterSize;
+  }
+
+  /**
+  Top y of a cluster
+  **/
+  public int getClusterY0(int cluster) {
+    return (cluster / _clustersX) * _clusterSize;
+  }
+
+  /**
+  Right x of a cluster (inclusive). Clusters at the border of the grid may be smaller.
+  **/
+  public int getClusterX1(int cluster) {
+    return min(getClusterX0(cluster) + _clusterSize, _graph.getWidth()) - 1;
+  }
+
+  /**
+  Bottom y of a cluster (inclusive). Clusters at the border of the grid may be smaller.
+  **/
+  public int getClusterY1(int cluster) {
+    return min(getClusterY0(cluster) + _clusterSize, _graph.getHeight()) - 1;
+  }
+
+  /**
+  Number of nodes of the abstract graph
+  **/
+  public int getNodeCount() {
+    return _nodeCount;
+  }
+
+  /**
+  Number of the first node of a cluster
+  **/
+  public int getFirstNode(int cluster) {
+    return _firstNodes[cluster];
+  }
+
+  /**
+  Number of the node after the last one of a cluster
+  **/
+  public int getEndNode(int cluster) {
+    return _firstNodes[cluster + 1];
+  }
+
+  /**
+  Square of a node
+  **/
+  public int getSquare(int node) {
+    return _nodeSquares[node];
+  }
+
+  /**
+  Cluster of a node
+  **/
+  public int getCluster(int node) {
+    return _nodeClusters[node];
+  }
+
+  /**
+  Node facing a node across the border of its cluster, at cost 1
+  **/
+  public int getPartner(int node) {
+    return _nodePartners[node];
+  }
+
+  /**
+  Cost of the shortest path inside their cluster between two nodes of the same cluster. Infinite if there is none.
+  **/
+  public double getCost(int node, int other) {
+    int cluster = _nodeClusters[node];
+    int first = _firstNodes[cluster];
+    int entries = _firstNodes[cluster + 1] - first;
+    return _entryCosts[cluster][(node - first) * entries + other - first];
+  }
+
+  /**
+  Mark a cluster to be rebuilt if it exists
+  **/
+  private void markDirty(int cx, int cy) {
+    if (cx >= 0 && cy >= 0 && cx < _clustersX && cy < _clustersY) {
+      _dirty[cy * _clustersX + cx] = true;
+      _anyDirty = true;
+    }
+  }
+
+  /**
+  Find the entrances of a cluster on its four borders and the costs between them
+  **/
+  private void buildCluster(int cluster) {
+    int x0 = getClusterX0(cluster);
+    int y0 = getClusterY0(cluster);
+    int x1 = getClusterX1(cluster);
+    int y1 = getClusterY1(cluster);
+
+    // at most one crossing per square and border
+    int[] squares = new int[4 * _clusterSize];
+    int[] partners = new int[4 * _clusterSize];
+    int count = 0;
+    if (y0 > 0) {
+      count = findEntrances(x0, y0, 1, 0, 0, -1, x1 - x0 + 1, squares, partners, count);
+    }
+    if (y1 < _graph.getHeight() - 1) {
+      count = findEntrances(x0, y1, 1, 0, 0, 1, x1 - x0 + 1, squares, partners, count);
+    }
+    if (x0 > 0) {
+      count = findEntrances(x0, y0, 0, 1, -1, 0, y1 - y0 + 1, squares, partners, count);
+    }
+    if (x1 < _graph.getWidth() - 1) {
+      count = findEntrances(x1, y0, 0, 1, 1, 0, y1 - y0 + 1, squares, partners, count);
+    }
+    _entrySquares[cluster] = Arrays.copyOf(squares, count);
+    _entryPartners[cluster] = Arrays.copyOf(partners, count);
+
+    // the costs between the entries, one search inside the cluster per entry
+    double[] costs = new double[count * count];
+    for (int i = 0; i < count; i++) {
+      _distances.compute(squares[i], x0, y0, x1, y1);
+      for (int j = 0; j < count; j++) {
+        costs[i * count + j] = _distances.getDistance(squares[j]);
+      }
+    }
+    _entryCosts[cluster] = costs;
+  }
+
+  /**
+  Find the runs of walkable squares facing walkable squares across a border, going from x, y in steps of stepX, stepY for length squares, with the other side at offset outX, outY.
+  Each run gets a crossing at its middle, or at both ends if it is wide. Returns the new number of crossings.
+  **/
+  private int findEntrances(int x, int y, int stepX, int stepY, int outX, int outY, int length, int[] squares, int[] partners, int count) {
+    int runStart = -1;
+    for (int i = 0; i <= length; i++) {
+      int sx = x + i * stepX;
+      int sy = y + i * stepY;
+      boolean open = i < length && _graph.isWalkable(sx, sy) && _graph.isWalkable(sx + outX, sy + outY);
+      if (open && runStart == -1) {
+        runStart = i;
+      }
+      else if (!open && runStart != -1) {
+        int runEnd = i - 1;
+        if (runEnd - runStart + 1 >= _MAX_ENTRANCE_WIDTH) {
+          count = addEntrance(x + runStart * stepX, y + runStart * stepY, outX, outY, squares, partners, count);
+          count = addEntrance(x + runEnd * stepX, y + runEnd * stepY, outX, outY, squares, partners, count);
+        }
+        else {
+          int middle = (runStart + runEnd) / 2;
+          count = addEntrance(x + middle * stepX, y + middle * stepY, outX, outY, squares, partners, count);
+        }
+        runStart = -1;
+      }
+    }
+    return count;
+  }
+
+  /**
+  Add a crossing from the square at x, y to the one at offset outX, outY
+  **/
+  private int addEntrance(int x, int y, int outX, int outY, int[] squares, int[] partners, int count) {
+    squares[count] = _graph.node(x, y);
+    partners[count] = _graph.node(x + outX, y + outY);
+    return count + 1;
+  }
+
+  /**
+  Number the nodes of all the clusters consecutively and connect the ones facing each other
+  **/
+  private void numberNodes() {
+    int clusters = _entrySquares.length;
+    _nodeCount = 0;
+    for (int cluster = 0; cluster < clusters; cluster++) {
+      _firstNodes[cluster] = _nodeCount;
+      _nodeCount += _entrySquares[cluster].length;
+    }
+    _firstNodes[clusters] = _nodeCount;
+    if (_nodeSquares.length < _nodeCount) {
+      _nodeSquares = new int[_nodeCount];
+      _nodeClusters = new int[_nodeCount];
+      _nodePartners = new int[_nodeCount];
+    }
+    for (int cluster = 0; cluster < clusters; cluster++) {
+      int first = _firstNodes[cluster];
+      for (int i = 0; i < _entrySquares[cluster].length; i++) {
+        _nodeSquares[first + i] = _entrySquares[cluster][i];
+        _nodeClusters[first + i] = cluster;
+      }
+    }
+    // both clusters of a border find the same runs, so every crossing has a node on each side
+    for (int node = 0; node < _nodeCount; node++) {
+      int cluster = _nodeClusters[node];
+      int partnerSquare = _entryPartners[cluster][node - _firstNodes[cluster]];
+      int partnerCluster = getClusterOfSquare(partnerSquare);
+      _nodePartners[node] = -1;
+      for (int other = _firstNodes[partnerCluster]; other < _firstNodes[partnerCluster + 1]; other++) {
+        if (_nodeSquares[other] == partnerSquare && _entryPartners[partnerCluster][other - _firstNodes[partnerCluster]] == _nodeSquares[node]) {
+          _nodePartners[node] = other;
+          break;
+        }
+      }
+    }
+  }
+}
@@ -19,6 +19,14 @@ public class CoordinateDouble {
     _y = y;
   }
   
+  /**
+  Setter for both coordinates from another coordinate
+  **/
+  public void set(CoordinateDouble other) {
+    _x = other._x;
+    _y = other._y;
+  }
+  
   /**
   Setter for x
   **/
@@ -90,15 +98,32 @@ public class CoordinateDouble {
   Calculate the magnitude of the coordinate (vector)
   **/
   public double magnitude() {
-    return sqrt(pow((float) this.getX(), (float) 2) + pow((float) this.getY(), (float) 2));
+    return Math.sqrt(squaredMagnitude());
+  }
+  
+  /**
+  Calculate the squared magnitude of the coordinate (vector). Cheaper than the magnitude when only comparing lengths.
+  **/
+  public double squaredMagnitude() {
+    return _x * _x + _y * _y;
+  }
+  
+  /**
+  Calculate the squared distance to another coordinate
+  **/
+  public double squaredDistance(CoordinateDouble other) {
+    double dx = _x - other._x;
+    double dy = _y - other._y;
+    return dx * dx + dy * dy;
   }
   
   /**
   Normalize the coordinate (vector)
   **/
   public void normalize() {
-    if (this.magnitude() != 0) {
-      this.dividedBy(this.magnitude());
+    double magnitude = this.magnitude();
+    if (magnitude != 0) {
+      this.dividedBy(magnitude);
     }
   } 
 }
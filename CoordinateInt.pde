@@ -19,6 +19,14 @@ public class CoordinateInt {
     _y = y;
   }
   
+  /**
+  Setter for both coordinates from another coordinate
+  **/
+  public void set(CoordinateInt other) {
+    _x = other._x;
+    _y = other._y;
+  }
+  
   /**
   Setter for x
   **/
@@ -90,7 +98,23 @@ public class CoordinateInt {
   Calculate the magnitude of the coordinate (vector)
   **/
   public double magnitude() {
-    return sqrt(pow((float) this.getX(), (float) 2) + pow((float) this.getY(), (float) 2));
+    return Math.sqrt(squaredMagnitude());
+  }
+  
+  /**
+  Calculate the squared magnitude of the coordinate (vector). Exact, unlike the magnitude.
+  **/
+  public long squaredMagnitude() {
+    return (long) _x * _x + (long) _y * _y;
+  }
+  
+  /**
+  Calculate the squared distance to another coordinate
+  **/
+  public long squaredDistance(CoordinateInt other) {
+    long dx = _x - other._x;
+    long dy = _y - other._y;
+    return dx * dx + dy * dy;
   }
   
 }
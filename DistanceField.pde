@@ -0,0 +1,144 @@
+/**
+Distances from every square of the world to a root square, computed with Dijkstra over the grid graph of the world.
+Once computed, anyone heading for the root finds the next step of a shortest path by looking at the neighbors of its square, without searching.
+The world keeps one rooted at the hero, which all the hunters chasing the hero share.
+**/
+public class DistanceField {
+
+  private GridGraph _graph;
+  private double[] _distances; // only valid for nodes with the current generation
+  private int[] _generations; // _generation if the node has been reached, _generation + 1 if its distance is final
+  private int _generation;
+  private IndexedHeap _open;
+  private int _root;
+  private int[] _neighbors; // scratch space for the neighbors of a node
+  private double[] _costs; // scratch space for the costs to the neighbors of a node
+
+  /**
+  Constructor. The field has no root until it is computed.
+  **/
+  public DistanceField(World world) {
+    _graph = world.getGridGraph();
+    int nodes = _graph.getNodeCount();
+    _distances = new double[nodes];
+    _generations = new int[nodes];
+    _generation = 0;
+    _open = new IndexedHeap(nodes);
+    _root = -1;
+    _neighbors = new int[8];
+    _costs = new double[8];
+  }
+
+  /**
+  Compute the distances of all the squares to the root node
+  **/
+  public void compute(int root) {
+    start(root);
+    proceed(Integer.MAX_VALUE);
+  }
+
+  /**
+  Start computing the distances to a root node, without reaching any other node yet. proceed() does the work, so it can be spread over several ticks.
+  The distances are only valid once it is complete.
+  **/
+  public void start(int root) {
+    // bumping the generation invalidates all the distances of the previous root without touching them
+    _generation += 2;
+    if (_generation >= Integer.MAX_VALUE - 2) {
+      Arrays.fill(_generations, 0);
+      _generation = 2;
+    }
+    _root = root;
+    _open.clear();
+
+    _distances[root] = 0;
+    _generations[root] = _generation;
+    _open.push(root, 0, 0);
+  }
+
+  /**
+  Settle up to a number of nodes of the computation started last. Returns whether it is complete.
+  **/
+  public boolean proceed(int budget) {
+    for (int settled = 0; settled < budget && !_open.isEmpty(); settled++) {
+      int node = _open.pop();
+      _generations[node] = _generation + 1;
+
+      double distance = _distances[node];
+      int count = _graph.neighbors(node, _neighbors, _costs);
+      for (int i = 0; i < count; i++) {
+        relax(_neighbors[i], distance + _costs[i]);
+      }
+    }
+    return _open.isEmpty();
+  }
+
+  /**
+  Tell if the computation started last is complete
+  **/
+  public boolean isComplete() {
+    return _open.isEmpty();
+  }
+
+  /**
+  Forget the root, e.g. because the obstacles have changed. The field has to be computed again before using it.
+  **/
+  public void invalidate() {
+    _root = -1;
+  }
+
+  /**
+  Root getter. -1 if the field has not been computed.
+  **/
+  public int getRoot() {
+    return _root;
+  }
+
+  /**
+  Distance of a node to the root. Infinite if the root can't be reached from it.
+  **/
+  public double getDistance(int node) {
+    return _generations[node] == _generation + 1 ? _distances[node] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+  Next node on a shortest path from a node to the root, i.e. the neighbor going down the distances the steepest.
+  Returns -1 if the node is the root or the root can't be reached from it.
+  **/
+  public int nextStep(int from) {
+    return nextStep(from, _neighbors, _costs);
+  }
+
+  /**
+  Next node on a shortest path from a node to the root, using the caller's scratch space (8 neighbors and costs), so several threads can follow the field at the same time.
+  **/
+  public int nextStep(int from, int[] neighbors, double[] costs) {
+    if (from == _root || getDistance(from) == Double.POSITIVE_INFINITY) {
+      return -1;
+    }
+    int best = -1;
+    double bestDistance = Double.POSITIVE_INFINITY;
+    int count = _graph.neighbors(from, neighbors, costs);
+    for (int i = 0; i < count; i++) {
+      double distance = getDistance(neighbors[i]) + costs[i];
+      if (distance < bestDistance) {
+        best = neighbors[i];
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+
+  /**
+  Reach a neighbor or update it if the new distance is shorter
+  **/
+  private void relax(int neighbor, double distance) {
+    int generation = _generations[neighbor];
+    if (generation == _generation + 1 || (generation == _generation && distance >= _distances[neighbor])) {
+      return;
+    }
+    _distances[neighbor] = distance;
+    _generations[neighbor] = _generation;
+    _open.push(neighbor, distance, 0);
+  }
+}
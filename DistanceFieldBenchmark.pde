@@ -0,0 +1,36 @@
+/**
+Benchmark computing the distance field of a square, as the world does for the hero whenever it changes squares
+**/
+public class DistanceFieldBenchmark extends Benchmark {
+
+  private final int _ROOTS = 64;
+
+  private DistanceField _field;
+  private int[] _roots;
+  private int _next;
+
+  /**
+  Constructor
+  **/
+  public DistanceFieldBenchmark() {
+    super("DistanceField.compute");
+  }
+
+  /**
+  Pick the roots
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _field = new DistanceField(simulation.getWorld());
+    _roots = randomWalkableNodes(simulation.getWorld(), _ROOTS);
+    _next = 0;
+  }
+
+  /**
+  Compute the field of the next root
+  **/
+  public int operation() {
+    _field.compute(_roots[_next]);
+    _next = (_next + 1) % _roots.length;
+    return _field.getRoot();
+  }
+}
@@ -0,0 +1,43 @@
+/**
+Benchmark drawing the tiles of the world, either from the background layer composited before, or compositing all the tiles again each time
+**/
+public class DrawWorldBenchmark extends Benchmark {
+
+  private boolean _composite;
+  private World _world;
+  private View _view;
+
+  /**
+  Constructor
+  **/
+  public DrawWorldBenchmark(boolean composite) {
+    super(composite ? "World.draw+composite" : "World.draw");
+    _composite = composite;
+  }
+
+  /**
+  Drawing needs the tiles of the background image
+  **/
+  public boolean needsTiles() {
+    return true;
+  }
+
+  /**
+  Keep the world and the view to draw it with
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _world = simulation.getWorld();
+    _view = view;
+  }
+
+  /**
+  Draw all the tiles
+  **/
+  public int operation() {
+    if (_composite) {
+      _world.getBackground().markAllDirty();
+    }
+    _world.draw(_view);
+    return _world.getGridSize().getX();
+  }
+}
@@ -0,0 +1,59 @@
+/**
+Player that follows a shortest path to the goal, but steps away from the hunters when one of them gets close
+**/
+public class EvasiveHeroPolicy implements HeroPolicy {
+
+  private final int _DANGER_DISTANCE = 3; // squares, in moves along the grid
+
+  private PathHeroPolicy _path;
+  private int[] _neighbors;
+  private double[] _costs;
+
+  /**
+  Prepare the path to the goal
+  **/
+  public void start(Simulation simulation) {
+    _path = new PathHeroPolicy();
+    _path.start(simulation);
+    _neighbors = new int[8];
+    _costs = new double[8];
+  }
+
+  /**
+  Take the path, unless a hunter is close. Then click on the neighbor square farthest from the closest hunter.
+  **/
+  public void steer(Simulation simulation) {
+    World world = simulation.getWorld();
+    GridGraph graph = world.getGridGraph();
+    CoordinateInt hero = world.positionToGrid(simulation.getHero().getPosition());
+    if (distanceToHunters(simulation, hero.getX(), hero.getY()) > _DANGER_DISTANCE) {
+      _path.steer(simulation);
+      return;
+    }
+    int best = -1;
+    int bestDistance = -1;
+    int count = graph.neighbors(graph.node(hero.getX(), hero.getY()), _neighbors, _costs);
+    for (int i = 0; i < count; i++) {
+      int distance = distanceToHunters(simulation, graph.getX(_neighbors[i]), graph.getY(_neighbors[i]));
+      if (distance > bestDistance) {
+        best = _neighbors[i];
+        bestDistance = distance;
+      }
+    }
+    if (best != -1) {
+      simulation.getHero().setDestination(new CoordinateInt(graph.getX(best), graph.getY(best)));
+    }
+  }
+
+  /**
+  Number of king moves from a square to the closest hunter, not counting obstacles
+  **/
+  private int distanceToHunters(Simulation simulation, int x, int y) {
+    int closest = Integer.MAX_VALUE;
+    for (Hunter hunter : simulation.getHunters()) {
+      CoordinateInt position = simulation.getWorld().positionToGrid(hunter.getPosition());
+      closest = min(closest, max(abs(position.getX() - x), abs(position.getY() - y)));
+    }
+    return closest;
+  }
+}
@@ -0,0 +1,55 @@
+/**
+Decides how many ticks of the simulation a frame runs, so the game advances at a fixed number of ticks per second whatever the frame rate.
+The time of the frames adds up in an accumulator, and every full tick of it is run. What is left over is how far the frame is into the next tick,
+which is used to draw the agents between their positions of the last two ticks.
+If the ticks fall behind, e.g. on an overloaded host, a frame runs at most a few of them and the rest of the backlog is dropped, so the game slows down instead of freezing.
+**/
+public class FixedTimestep {
+
+  private long _tickNanos;
+  private int _maxTicksPerFrame;
+  private long _accumulator; // nanoseconds not run as ticks yet
+  private long _lastTime; // of the last frame. -1 before the first one
+
+  /**
+  Constructor. Takes the ticks per second and the most ticks a frame may run.
+  **/
+  public FixedTimestep(double tickRate, int maxTicksPerFrame) {
+    _tickNanos = (long) (1e9 / tickRate);
+    _maxTicksPerFrame = maxTicksPerFrame;
+    reset();
+  }
+
+  /**
+  Start over without a backlog, e.g. when the game starts or resumes after a pause
+  **/
+  public void reset() {
+    _accumulator = 0;
+    _lastTime = -1;
+  }
+
+  /**
+  Add the time since the last frame and return the number of ticks the frame has to run. Takes the current time in nanoseconds (System.nanoTime()).
+  **/
+  public int advance(long now) {
+    if (_lastTime == -1) {
+      _lastTime = now;
+      return 0;
+    }
+    _accumulator += now - _lastTime;
+    _lastTime = now;
+    long ticks = _accumulator / _tickNanos;
+    _accumulator -= ticks * _tickNanos;
+    if (ticks > _maxTicksPerFrame) {
+      ticks = _maxTicksPerFrame;
+    }
+    return (int) ticks;
+  }
+
+  /**
+  How far the frame is into the next tick, between 0 (at the last tick) and 1 (at the next one)
+  **/
+  public double getAlpha() {
+    return _accumulator / (double) _tickNanos;
+  }
+}
@@ -0,0 +1,100 @@
+/**
+Distance field toward a target square that moves, shared by any number of hunters heading for it. Following it costs a look at the neighbors of a square, however many hunters there are.
+When the target moves, the new field is computed a slice of nodes per tick into a second field, while the hunters keep going down the last complete one, so no tick pays for a whole field.
+Only the first field of a game is computed at once. When squares change during a game, the hunters keep going down the old field, which only leads them onto
+walkable squares, until the new one is complete.
+**/
+public class FlowField {
+
+  private DistanceField _front; // complete, followed by the hunters
+  private DistanceField _back; // being computed for the latest target
+  private boolean _computing;
+  private boolean _stale; // the front field was computed before squares changed
+  private int _target;
+
+  /**
+  Constructor. The field has no target until one is set.
+  **/
+  public FlowField(World world) {
+    _front = new DistanceField(world);
+    _back = new DistanceField(world);
+    _computing = false;
+    _stale = false;
+    _target = -1;
+  }
+
+  /**
+  Target setter. The field heads there once the computation for it is complete.
+  **/
+  public void setTarget(int target) {
+    _target = target;
+  }
+
+  /**
+  Target getter. -1 if none has been set.
+  **/
+  public int getTarget() {
+    return _target;
+  }
+
+  /**
+  Root of the field the hunters follow. It lags behind the target while a new field is computed.
+  **/
+  public int getRoot() {
+    return _front.getRoot();
+  }
+
+  /**
+  Spend up to a number of settled nodes on bringing the field up to date with its target. Without a complete field, it is computed at once.
+  A computation is finished before the next one starts, so a target moving every tick can't keep the field from ever catching up.
+  **/
+  public void advance(int budget) {
+    if (_target == -1) {
+      return;
+    }
+    if (_front.getRoot() == -1) {
+      _front.compute(_target);
+      _computing = false;
+      return;
+    }
+    if (!_computing) {
+      if (_front.getRoot() == _target && !_stale) {
+        return;
+      }
+      _back.start(_target);
+      _computing = true;
+      _stale = false;
+    }
+    if (_back.proceed(budget)) {
+      DistanceField field = _front;
+      _front = _back;
+      _back = field;
+      _computing = false;
+    }
+  }
+
+  /**
+  Forget the fields, e.g. because all the obstacles were placed again. The next advance() computes the field at once.
+  **/
+  public void invalidate() {
+    _front.invalidate();
+    _back.invalidate();
+    _computing = false;
+    _stale = false;
+  }
+
+  /**
+  Compute the field again for squares that changed during a game, a slice per tick like for a new target. A computation in progress started over.
+  **/
+  public void refresh() {
+    _computing = false;
+    _stale = true;
+  }
+
+  /**
+  Next node on a shortest path from a node to the root of the field, with the caller's scratch space (8 neighbors and costs). -1 at the root or if it can't be reached.
+  **/
+  public int nextStep(int from, int[] neighbors, double[] costs) {
+    return _front.getRoot() != -1 ? _front.nextStep(from, neighbors, costs) : -1;
+  }
+}
@@ -14,6 +14,6 @@ public class Follower extends Hunter {
   Go to where the hero is
   **/
   protected void calculateDestination() {
-    this.setDestination(this.getWorld().positionToGrid(this.getWorld().getHero().getPosition()));
+    this.setDestination(this.getWorld().positionToGrid(this.getWorld().getHero().getPosition(), this.getTarget()));
   }
 }
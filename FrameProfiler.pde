@@ -0,0 +1,203 @@
+/**
+Measures where the time of the frames goes: the parts of the ticks (see Simulation.setProfiler()) and the drawing, plus the ticks run, the nodes the searches expanded
+and the bytes the ticks allocated. The columns are the PROFILE_ constants. The values of a frame add up over its ticks, and over the hunters for the hunters' parts.
+The last frames are kept, so it can show the median and the 99th percentile of each column next to the last frame, and a graph of the frame times.
+The frames can also be written to a CSV file, one line per frame, to look at them offline.
+Measuring only takes a few calls to System.nanoTime() per part and doesn't allocate. Drawing the overlay does, but it isn't measured.
+**/
+public class FrameProfiler implements Drawable {
+
+  private final String[] _NAMES = { "frame", "hero", "prepare", "destinations", "search", "slowest search", "moves", "rules",
+    "world draw", "drawables", "animations", "ticks", "expanded", "bytes" };
+  private final int _WIDTH = 250; // of the overlay in pixels
+  private final int _LINE = 13;
+  private final int _GRAPH_HEIGHT = 40;
+
+  private long[][] _frames; // by column, the values of the last frames in a ring
+  private int _next; // slot of the ring the next frame goes to
+  private int _count; // frames in the ring
+  private long[] _current; // values of the frame being measured
+  private long[] _sorted; // scratch space for the percentiles
+  private long _frameStart;
+  private long _tickBytes; // allocated by the thread when the tick started
+  private AllocationCounter _allocations;
+  private PrintWriter _export; // null unless the frames are written out
+
+  /**
+  Constructor. Takes the number of frames the percentiles are taken over.
+  **/
+  public FrameProfiler(int frames) {
+    _frames = new long[PROFILE_COLUMNS][frames];
+    _current = new long[PROFILE_COLUMNS];
+    _sorted = new long[frames];
+    _next = 0;
+    _count = 0;
+
+    _allocations = new AllocationCounter();
+  }
+
+  /**
+  Start measuring a new frame
+  **/
+  public void beginFrame() {
+    Arrays.fill(_current, 0);
+    if (!_allocations.isSupported()) {
+      _current[PROFILE_BYTES] = -1;
+    }
+    _frameStart = System.nanoTime();
+  }
+
+  /**
+  Add to a column of the frame
+  **/
+  public void add(int column, long value) {
+    _current[column] += value;
+  }
+
+  /**
+  Raise a column of the frame to a value, if it is lower
+  **/
+  public void max(int column, long value) {
+    _current[column] = Math.max(_current[column], value);
+  }
+
+  /**
+  Add the time since start to a column of the frame. Returns the current time, so the next part can be measured from there.
+  **/
+  public long lap(int column, long start) {
+    long now = System.nanoTime();
+    _current[column] += now - start;
+    return now;
+  }
+
+  /**
+  Start measuring a tick of the simulation
+  **/
+  public void beginTick() {
+    _tickBytes = _allocations.getAllocatedBytes();
+  }
+
+  /**
+  Count a tick of the simulation and the bytes it allocated
+  **/
+  public void endTick() {
+    _current[PROFILE_TICKS]++;
+    if (_allocations.isSupported()) {
+      _current[PROFILE_BYTES] += _allocations.getAllocatedBytes() - _tickBytes;
+    }
+  }
+
+  /**
+  Finish measuring the frame. It is kept with the last frames, and written out if the frames are exported.
+  **/
+  public void endFrame() {
+    _current[PROFILE_FRAME] = System.nanoTime() - _frameStart;
+    for (int column = 0; column < PROFILE_COLUMNS; column++) {
+      _frames[column][_next] = _current[column];
+    }
+    _next = (_next + 1) % _sorted.length;
+    _count = Math.min(_count + 1, _sorted.length);
+    if (_export != null) {
+      for (int column = 0; column < PROFILE_COLUMNS; column++) {
+        if (column > 0) {
+          _export.print(',');
+        }
+        _export.print(_current[column]);
+      }
+      _export.println();
+    }
+  }
+
+  /**
+  Value of a column in the last frame
+  **/
+  public long getLast(int column) {
+    return _count > 0 ? _frames[column][(_next + _sorted.length - 1) % _sorted.length] : 0;
+  }
+
+  /**
+  Percentile (between 0 and 100) of a column over the last frames. 0 without frames.
+  **/
+  public long getPercentile(int column, double percentile) {
+    if (_count == 0) {
+      return 0;
+    }
+    System.arraycopy(_frames[column], 0, _sorted, 0, _count);
+    Arrays.sort(_sorted, 0, _count);
+    int index = (int) Math.ceil(percentile / 100 * _count) - 1;
+    return _sorted[Math.max(0, Math.min(_count - 1, index))];
+  }
+
+  /**
+  Write the frames to a CSV file from now on, starting with the names of the columns. Times are in nanoseconds.
+  **/
+  public void startExport(PrintWriter export) {
+    _export = export;
+    for (int column = 0; column < PROFILE_COLUMNS; column++) {
+      if (column > 0) {
+        _export.print(',');
+      }
+      _export.print(_NAMES[column].replace(' ', '_'));
+    }
+    _export.println();
+  }
+
+  /**
+  Stop writing the frames. The writer is flushed but left open.
+  **/
+  public void stopExport() {
+    if (_export != null) {
+      _export.flush();
+      _export = null;
+    }
+  }
+
+  /**
+  Draw the overlay in the top left corner: the last frame, the median and the 99th percentile of each column, times in milliseconds,
+  then the times of the last frames as bars against the time a frame has at the frame rate
+  **/
+  public void draw(View view) {
+    int height = (PROFILE_COLUMNS + 1) * _LINE + _GRAPH_HEIGHT + 10;
+    noStroke();
+    fill(0, 180);
+    rect(0, 0, _WIDTH, height);
+
+    textSize(11);
+    textAlign(LEFT, TOP);
+    fill(255);
+    text("last", 110, 2);
+    text("p50", 155, 2);
+    text("p99", 200, 2);
+    for (int column = 0; column < PROFILE_COLUMNS; column++) {
+      int y = (column + 1) * _LINE + 2;
+      text(_NAMES[column], 4, y);
+      text(format(column, getLast(column)), 110, y);
+      text(format(column, getPercentile(column, 50)), 155, y);
+      text(format(column, getPercentile(column, 99)), 200, y);
+    }
+
+    // frame times, the oldest on the left. the line is the time of a frame at the frame rate, where the bars are cut off
+    int top = (PROFILE_COLUMNS + 1) * _LINE + 6;
+    double budget = 1e9 / FRAME_RATE;
+    int first = (_next + _sorted.length - _count) % _sorted.length;
+    stroke(255, 215, 0);
+    strokeWeight(1);
+    for (int i = 0; i < _count; i++) {
+      double share = Math.min(1, _frames[PROFILE_FRAME][(first + i) % _sorted.length] / budget);
+      int x = 4 + i * (_WIDTH - 8) / _sorted.length;
+      line(x, top + _GRAPH_HEIGHT, x, top + _GRAPH_HEIGHT - (int) (share * _GRAPH_HEIGHT));
+    }
+    stroke(255, 16, 0);
+    line(4, top, _WIDTH - 4, top);
+  }
+
+  /**
+  A value of a column as shown in the overlay
+  **/
+  private String format(int column, long value) {
+    if (column >= PROFILE_TICKS) {
+      return String.valueOf(value);
+    }
+    return String.format("%.2f", value / 1e6);
+  }
+}
@@ -0,0 +1,150 @@
+/**
+Graph of the grid of the world that is never built: the edges of a node are computed from the walkable grid whenever they are asked for.
+Nodes are the ids of the squares (y * grid width + x), connected like in World.buildGraph(): cost 1 to the horizontal and vertical neighbors,
+sqrt(2) to the diagonal ones, and no diagonal moves next to a not walkable square, so the hunters won't get stuck. Squares that are not walkable have no edges.
+It costs no memory besides the walkable grid and always reflects its current state, so all the searches on the grid use it instead of World.getGraph().
+**/
+public class GridGraph {
+
+  private final double _SQRT_TWO = Math.sqrt(2);
+
+  private WalkableGrid _walkable;
+  private int _width;
+  private int _height;
+
+  /**
+  Constructor
+  **/
+  public GridGraph(World world) {
+    _walkable = world.getWalkableGrid();
+    _width = _walkable.getWidth();
+    _height = _walkable.getHeight();
+  }
+
+  /**
+  Number of nodes, i.e. of squares
+  **/
+  public int getNodeCount() {
+    return _width * _height;
+  }
+
+  /**
+  Width getter
+  **/
+  public int getWidth() {
+    return _width;
+  }
+
+  /**
+  Height getter
+  **/
+  public int getHeight() {
+    return _height;
+  }
+
+  /**
+  Node id of the square at grid position x, y
+  **/
+  public int node(int x, int y) {
+    return y * _width + x;
+  }
+
+  /**
+  Grid x position of a node
+  **/
+  public int getX(int node) {
+    return node % _width;
+  }
+
+  /**
+  Grid y position of a node
+  **/
+  public int getY(int node) {
+    return node / _width;
+  }
+
+  /**
+  Query if the square of a node can be visited
+  **/
+  public boolean isWalkable(int node) {
+    return _walkable.isWalkable(node % _width, node / _width);
+  }
+
+  /**
+  Query if the square at grid position x, y is inside the grid and can be visited
+  **/
+  public boolean isWalkable(int x, int y) {
+    return x >= 0 && y >= 0 && x < _width && y < _height && _walkable.isWalkable(x, y);
+  }
+
+  /**
+  Query if the square at x, y, entered by a straight move in direction dx, dy, has a forced neighbor. That is a square next to it that can't be reached
+  as cheaply without passing through x, y, because the diagonal move to it from the previous square is blocked. Such squares are the jump points of Jump Point Search.
+  **/
+  public boolean hasForcedNeighbor(int x, int y, int dx, int dy) {
+    if (dx != 0) {
+      return (isWalkable(x, y - 1) && !isWalkable(x - dx, y - 1)) || (isWalkable(x, y + 1) && !isWalkable(x - dx, y + 1));
+    }
+    return (isWalkable(x - 1, y) && !isWalkable(x - 1, y - dy)) || (isWalkable(x + 1, y) && !isWalkable(x + 1, y - dy));
+  }
+
+  /**
+  Write the neighbors of a node and the costs to them into the buffers, which need room for 8 entries. Returns the number of neighbors.
+  **/
+  public int neighbors(int node, int[] neighbors, double[] costs) {
+    int x = node % _width;
+    int y = node / _width;
+    if (!_walkable.isWalkable(x, y)) {
+      return 0;
+    }
+    int count = 0;
+    boolean up = y > 0 && _walkable.isWalkable(x, y - 1);
+    boolean down = y < _height - 1 && _walkable.isWalkable(x, y + 1);
+    boolean left = x > 0 && _walkable.isWalkable(x - 1, y);
+    boolean right = x < _width - 1 && _walkable.isWalkable(x + 1, y);
+    // the straight neighbors
+    if (up) {
+      neighbors[count] = node - _width;
+      costs[count++] = 1;
+    }
+    if (down) {
+      neighbors[count] = node + _width;
+      costs[count++] = 1;
+    }
+    if (left) {
+      neighbors[count] = node - 1;
+      costs[count++] = 1;
+    }
+    if (right) {
+      neighbors[count] = node + 1;
+      costs[count++] = 1;
+    }
+    // the diagonal neighbors. both squares next to the diagonal need to be walkable
+    if (up && left && _walkable.isWalkable(x - 1, y - 1)) {
+      neighbors[count] = node - _width - 1;
+      costs[count++] = _SQRT_TWO;
+    }
+    if (up && right && _walkable.isWalkable(x + 1, y - 1)) {
+      neighbors[count] = node - _width + 1;
+      costs[count++] = _SQRT_TWO;
+    }
+    if (down && left && _walkable.isWalkable(x - 1, y + 1)) {
+      neighbors[count] = node + _width - 1;
+      costs[count++] = _SQRT_TWO;
+    }
+    if (down && right && _walkable.isWalkable(x + 1, y + 1)) {
+      neighbors[count] = node + _width + 1;
+      costs[count++] = _SQRT_TWO;
+    }
+    return count;
+  }
+
+  /**
+  Octile distance between two nodes. It is the length of a shortest path on an empty grid, so it never overestimates.
+  **/
+  public double heuristic(int a, int b) {
+    int dx = abs(a % _width - b % _width);
+    int dy = abs(a / _width - b / _width);
+    return dx + dy + (_SQRT_TWO - 2) * min(dx, dy);
+  }
+}
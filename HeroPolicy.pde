@@ -0,0 +1,16 @@
+/**
+Interface for scripted players. In batch runs they stand in for the mouse clicks that tell the hero where to go.
+A policy is created for each game, so it may keep state about it.
+**/
+interface HeroPolicy {
+
+  /**
+  The game has been loaded and is about to start
+  **/
+  public void start(Simulation simulation);
+
+  /**
+  Called before every tick. Tell the hero where to go by setting its destination, like a click would.
+  **/
+  public void steer(Simulation simulation);
+}
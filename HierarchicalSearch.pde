@@ -0,0 +1,190 @@
+/**
+Hierarchical path finding (HPA*) on the cluster map of the world, for worlds too large to search square by square every frame.
+The start and the goal are connected to the nodes of their clusters by searches inside the clusters, then A* runs on the abstract graph.
+Only the first segment of the abstract path is refined into squares, since only the next step is needed. The paths are not always the shortest,
+but close to it. The distances inside the clusters of the start and the goal are kept as long as they don't move and the map doesn't change.
+Each searching object needs its own instance.
+**/
+public class HierarchicalSearch {
+
+  private World _world;
+  private GridGraph _graph;
+  private ClusterMap _map;
+  private ClusterDistances _startDistances;
+  private ClusterDistances _goalDistances;
+  private int _startVersion; // version of the cluster map the start distances were computed for
+  private int _goalVersion; // version of the cluster map the goal distances were computed for
+  private double[] _g; // cost from the start by abstract node. only valid for nodes with the current generation
+  private int[] _parent; // previous abstract node on the best path found so far
+  private int[] _generations; // _generation if the node is open, _generation + 1 if it is closed
+  private int _generation;
+  private IndexedHeap _open;
+  private int[] _path; // abstract path from the goal back to the start
+  private int _expanded;
+
+  /**
+  Constructor
+  **/
+  public HierarchicalSearch(World world) {
+    _world = world;
+    _graph = world.getGridGraph();
+    ClusterMap map = world.getClusterMap();
+    _startDistances = new ClusterDistances(world, map.getClusterSize());
+    _goalDistances = new ClusterDistances(world, map.getClusterSize());
+    _g = new double[0];
+    _parent = new int[0];
+    _generations = new int[0];
+    _generation = 0;
+    _path = new int[16];
+    // make room for the nodes of the map now, so the first search of a game doesn't allocate
+    prepare(map.getNodeCount() + 2);
+  }
+
+  /**
+  Next node on a path from one node to another. Returns -1 if there is no path or the searcher is already there.
+  **/
+  public int nextStep(int from, int to) {
+    _expanded = 0;
+    if (from == to || !_graph.isWalkable(from) || !_graph.isWalkable(to)) {
+      return -1;
+    }
+    _map = _world.getClusterMap();
+    int nodes = _map.getNodeCount();
+    // the start and the goal are the two nodes after the ones of the map
+    int start = nodes;
+    int goal = nodes + 1;
+    prepare(nodes + 2);
+
+    // distances inside the clusters of the start and the goal
+    int startCluster = _map.getClusterOfSquare(from);
+    int goalCluster = _map.getClusterOfSquare(to);
+    if (_startDistances.getSource() != from || _startVersion != _map.getVersion()) {
+      computeDistances(_startDistances, from, startCluster);
+      _startVersion = _map.getVersion();
+    }
+    if (_goalDistances.getSource() != to || _goalVersion != _map.getVersion()) {
+      computeDistances(_goalDistances, to, goalCluster);
+      _goalVersion = _map.getVersion();
+    }
+
+    // A* on the abstract graph
+    _g[start] = 0;
+    _parent[start] = -1;
+    _generations[start] = _generation;
+    _open.push(start, _graph.heuristic(from, to), 0);
+    boolean found = false;
+    while (!_open.isEmpty()) {
+      int node = _open.pop();
+      if (node == goal) {
+        found = true;
+        break;
+      }
+      _generations[node] = _generation + 1;
+      _expanded++;
+
+      if (node == start) {
+        // to the nodes of the start cluster, and straight to the goal if it is in the same cluster
+        for (int other = _map.getFirstNode(startCluster); other < _map.getEndNode(startCluster); other++) {
+          relax(node, other, _startDistances.getDistance(_map.getSquare(other)), _map.getSquare(other), to);
+        }
+        if (startCluster == goalCluster) {
+          relax(node, goal, _startDistances.getDistance(to), to, to);
+        }
+        continue;
+      }
+
+      // across the border, to the other nodes of the cluster, and to the goal if it is in the cluster
+      int cluster = _map.getCluster(node);
+      int partner = _map.getPartner(node);
+      if (partner != -1) {
+        relax(node, partner, 1, _map.getSquare(partner), to);
+      }
+      for (int other = _map.getFirstNode(cluster); other < _map.getEndNode(cluster); other++) {
+        if (other != node) {
+          relax(node, other, _map.getCost(node, other), _map.getSquare(other), to);
+        }
+      }
+      if (cluster == goalCluster) {
+        relax(node, goal, _goalDistances.getDistance(_map.getSquare(node)), to, to);
+      }
+    }
+    _open.clear();
+    if (!found) {
+      return -1;
+    }
+
+    // follow the abstract path from the start to the first node on another square
+    int length = 0;
+    for (int node = goal; node != start; node = _parent[node]) {
+      if (length == _path.length) {
+        _path = Arrays.copyOf(_path, 2 * length);
+      }
+      _path[length++] = node;
+    }
+    for (int i = length - 1; i >= 0; i--) {
+      int node = _path[i];
+      int square = node == goal ? to : _map.getSquare(node);
+      if (square == from) {
+        continue;
+      }
+      // a node in another cluster is across the border from the start, one step away. otherwise refine the first segment inside the start cluster
+      if (_map.getClusterOfSquare(square) != startCluster) {
+        return square;
+      }
+      return _startDistances.firstStep(square);
+    }
+    return -1;
+  }
+
+  /**
+  Number of abstract nodes expanded by the last call to nextStep()
+  **/
+  public int getExpandedNodes() {
+    return _expanded;
+  }
+
+  /**
+  Open an abstract node or update it if the new path to it is shorter
+  **/
+  private void relax(int node, int other, double cost, int otherSquare, int to) {
+    if (cost == Double.POSITIVE_INFINITY) {
+      return;
+    }
+    double g = _g[node] + cost;
+    int generation = _generations[other];
+    if (generation == _generation + 1 || (generation == _generation && g >= _g[other])) {
+      return;
+    }
+    _g[other] = g;
+    _parent[other] = node;
+    _generations[other] = _generation;
+    double h = _graph.heuristic(otherSquare, to);
+    _open.push(other, g + h, h);
+  }
+
+  /**
+  Compute the distances from a square to the squares of its cluster
+  **/
+  private void computeDistances(ClusterDistances distances, int square, int cluster) {
+    distances.compute(square, _map.getClusterX0(cluster), _map.getClusterY0(cluster), _map.getClusterX1(cluster), _map.getClusterY1(cluster));
+  }
+
+  /**
+  Make room for the abstract nodes and start a new generation. The abstract graph can grow when clusters are rebuilt.
+  **/
+  private void prepare(int nodes) {
+    if (_g.length < nodes) {
+      int capacity = max(nodes, 2 * _g.length);
+      _g = new double[capacity];
+      _parent = new int[capacity];
+      _generations = new int[capacity];
+      _generation = 0;
+      _open = new IndexedHeap(capacity);
+    }
+    _generation += 2;
+    if (_generation >= Integer.MAX_VALUE - 2) {
+      Arrays.fill(_generations, 0);
+      _generation = 2;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/**
+Benchmark finding the next step between random walkable squares with the hierarchical search. The pairs are the same as for the A* benchmark.
+**/
+public class HierarchicalSearchBenchmark extends Benchmark {
+
+  private final int _PAIRS = 64;
+
+  private HierarchicalSearch _hierarchicalSearch;
+  private int[] _nodes;
+  private int _next;
+
+  /**
+  Constructor
+  **/
+  public HierarchicalSearchBenchmark() {
+    super("HierarchicalSearch.nextStep");
+  }
+
+  /**
+  Pick the start and goal squares. The clusters are built here, since a game builds them only once.
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _hierarchicalSearch = new HierarchicalSearch(simulation.getWorld());
+    _nodes = randomWalkableNodes(simulation.getWorld(), 2 * _PAIRS);
+    _next = 0;
+  }
+
+  /**
+  Search the next pair
+  **/
+  public int operation() {
+    int next = _hierarchicalSearch.nextStep(_nodes[_next], _nodes[_next + 1]);
+    _next = (_next + 2) % _nodes.length;
+    return next;
+  }
+}
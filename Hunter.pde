@@ -1,62 +1,350 @@
-import pathfinder.*;
-import java.util.LinkedList;
-
 /**
 Parent class for all the hunters
 **/
-public abstract class Hunter extends Agent {
+public abstract class Hunter extends Agent implements WalkabilityListener {
   
-  private GraphSearch_Astar _aStar;
+  private int _searchMode;
+  private IncrementalSearch _incrementalSearch;
+  private AStarSearch _aStar;
+  private JumpPointSearch _jumpPointSearch;
+  private HierarchicalSearch _hierarchicalSearch;
+  private int[] _path; // beginning of the path found by a search from scratch. only the first step is used
+  private int _plannedStep; // square to go to next, found by plan(). -1 to stay
+  private CoordinateInt _target; // destination chosen by the strategy, reused every tick
+  private CoordinateInt _nextSquare; // destination while taking the planned step, reused every tick
+  private int[] _neighbors; // scratch space for following the distance fields
+  private double[] _costs; // scratch space for following the distance fields
+  private boolean _followPaths; // whether the searches from scratch are followed instead of run every tick
+  private int _searches; // searches from scratch run by the hunter
+  private boolean _profiled; // whether plan() measures its time
+  private long _destinationNanos; // spent by the last plan() on the destination
+  private long _searchNanos; // spent by the last plan() on the search
+  private int _expandedNodes; // by the search of the last plan()
+  private int[] _route; // whole path found last, by the scheduler or a search from scratch that is followed. followed until a new one is found
+  private int _routeLength;
+  private int _routeIndex; // of the next square of the route to go to
+  private int _routeGoal; // last square of the route. -1 without a route
+  private int _wantedGoal; // destination the hunter needs a route to. -1 if it doesn't need one
   
   /**
-  Constructor. Initializes A*
+  Constructor. The hunter searches incrementally, but the search is only created when the search mode is set or the hunter first plans, since a swarm of hunters may not need any.
   **/
   public Hunter(CoordinateInt position, Double speed, PImage image, World world) {
     super(position, speed, image, world);
-    _aStar = new GraphSearch_Astar(world.getGraph());
+    _path = new int[2];
+    _plannedStep = -1;
+    _target = new CoordinateInt(0, 0);
+    _nextSquare = new CoordinateInt(0, 0);
+    _neighbors = new int[8];
+    _costs = new double[8];
+    _routeGoal = -1;
+    _wantedGoal = -1;
+    _followPaths = false;
+    _searchMode = SEARCH_INCREMENTAL;
+  }
+  
+  /**
+  Choose how to find the way to destinations other than the hero. One of the SEARCH_ constants. The searches keep scratch memory as large as the grid, so they are only created when chosen.
+  With SEARCH_FLOW_FIELDS, the hunter follows the flow fields of the swarm to all its destinations, including the hero, and needs no search of its own.
+  With SEARCH_SCHEDULED, the hunter doesn't search either. It asks the planning scheduler for routes and only keeps the route it follows.
+  **/
+  public void setSearchMode(int searchMode) {
+    _searchMode = searchMode;
+    // created now rather than when planning, where the hunters may plan at the same time
+    createSearch();
+  }
+  
+  /**
+  Create the search of the search mode and the buffer for its routes, unless they exist already
+  **/
+  private void createSearch() {
+    if (_searchMode == SEARCH_INCREMENTAL && _incrementalSearch == null) {
+      _incrementalSearch = new IncrementalSearch(this.getWorld());
+    }
+    else if (_searchMode == SEARCH_ASTAR && _aStar == null) {
+      _aStar = new AStarSearch(this.getWorld());
+    }
+    else if ((_searchMode == SEARCH_JPS || _searchMode == SEARCH_JPS_PLUS)
+      && (_jumpPointSearch == null || _jumpPointSearch.isPrecomputed() != (_searchMode == SEARCH_JPS_PLUS))) {
+      _jumpPointSearch = new JumpPointSearch(this.getWorld(), _searchMode == SEARCH_JPS_PLUS);
+    }
+    else if (_searchMode == SEARCH_HIERARCHICAL && _hierarchicalSearch == null) {
+      _hierarchicalSearch = new HierarchicalSearch(this.getWorld());
+    }
+    if (_searchMode != SEARCH_INCREMENTAL && _searchMode != SEARCH_HIERARCHICAL && _searchMode != SEARCH_FLOW_FIELDS && _route == null) {
+      // long enough for most routes, so following them doesn't allocate
+      CoordinateInt gridSize = this.getWorld().getGridSize();
+      _route = new int[2 * (gridSize.getX() + gridSize.getY())];
+    }
+  }
+  
+  /**
+  Choose whether the searches from scratch (SEARCH_ASTAR, SEARCH_JPS and SEARCH_JPS_PLUS) are followed. The hunter then keeps the whole path and walks along it,
+  and only searches again when it reaches a new square of the path and its destination moved, or when the path ends or is lost. Otherwise it searches every tick.
+  **/
+  public void setFollowPaths(boolean followPaths) {
+    _followPaths = followPaths;
+    _routeLength = 0;
+    _routeGoal = -1;
+  }
+  
+  /**
+  Choose whether plan() measures the time it spends on the destination and on the search
+  **/
+  public void setProfiled(boolean profiled) {
+    _profiled = profiled;
+  }
+  
+  /**
+  Nanoseconds the last plan() spent calculating the destination. Only measured if the hunter is profiled.
+  **/
+  public long getDestinationNanos() {
+    return _destinationNanos;
   }
   
   /**
-  Main loop for Hunters. First, calculate the destination, which is different depending on the strategy the Hunter uses.
-  Then apply A* to find a path to the destination. Next, go towards the closest node on the path.
+  Nanoseconds the last plan() spent on the search. Only measured if the hunter is profiled.
+  **/
+  public long getSearchNanos() {
+    return _searchNanos;
+  }
+  
+  /**
+  Nodes expanded by the search of the last plan(). 0 if it didn't search, e.g. when it followed a path or a distance field.
+  **/
+  public int getExpandedNodes() {
+    return _expandedNodes;
+  }
+  
+  /**
+  Number of searches from scratch the hunter ran, to see how much following the paths saves
+  **/
+  public int getSearchCount() {
+    return _searches;
+  }
+  
+  /**
+  Search mode getter
+  **/
+  public int getSearchMode() {
+    return _searchMode;
+  }
+  
+  /**
+  Main loop for Hunters. Plan the next step and take it.
   **/
   public void doSomething() {
-    // have the child calculate the destination
+    plan();
+    apply();
+  }
+  
+  /**
+  First calculate the destination, which is different depending on the strategy the Hunter uses.
+  Then find the next square on a shortest path to the destination. Hunters heading for the hero take it from the distance field the world keeps for the hero.
+  The others plan with the search of their search mode. By default that is the incremental search, which repairs the plan of the last frame instead of searching from scratch.
+  With SEARCH_SCHEDULED, they follow the route the planning scheduler found last, and only tell the scheduler where they need a route to.
+  The searches from scratch are followed the same way if the hunter follows paths, instead of searching every tick (see setFollowPaths()).
+  Planning only changes the hunter itself and doesn't move it, so all the hunters of a tick can plan at the same time once the world has been prepared (see World.preparePlanning()).
+  **/
+  public void plan() {
+    _plannedStep = -1;
+    _wantedGoal = -1;
+    _expandedNodes = 0;
+    if (!_profiled) {
+      // have the child calculate the destination
+      calculateDestination();
+      planStep();
+      return;
+    }
+    long start = System.nanoTime();
     calculateDestination();
-    
-    // execute A* to get the next node on the path to the destination
-    CoordinateInt gridPosition = this.getWorld().positionToGrid(this.getPosition()); 
-    int from = gridPosition.getY() * this.getWorld().getGridSize().getX() + gridPosition.getX();
-    int to = this.getDestination().getY() * this.getWorld().getGridSize().getX() + this.getDestination().getX();
-    // don't do anything if we are already at the destination. the A* library does not seem to like this
+    long middle = System.nanoTime();
+    planStep();
+    _destinationNanos = middle - start;
+    _searchNanos = System.nanoTime() - middle;
+  }
+  
+  /**
+  Find the next square on a shortest path to the destination calculated by the strategy
+  **/
+  private void planStep() {
+    int width = this.getWorld().getGridSize().getX();
+    int from = this.getWorld().positionToNode(this.getPosition());
+    int to = this.getDestination().getY() * width + this.getDestination().getX();
+    int hero = this.getWorld().positionToNode(this.getWorld().getHero().getPosition());
+    // don't do anything if we are already at the destination
     if (from == to) {
       return;
     }
+    // a hunter whose search mode was never set searches incrementally
+    createSearch();
+
+    // get the next node on the path to the destination. without a path the hunter can't move
+    if (_searchMode == SEARCH_FLOW_FIELDS) {
+      _plannedStep = this.getWorld().getSwarm().nextStep(from, to, _neighbors, _costs);
+    }
+    else if (to == hero) {
+      _plannedStep = this.getWorld().getHeroDistanceField().nextStep(from, _neighbors, _costs);
+    }
+    else if (_searchMode == SEARCH_INCREMENTAL) {
+      _plannedStep = _incrementalSearch.nextStep(from, to);
+      _expandedNodes = _incrementalSearch.getExpandedNodes();
+    }
+    else if (_searchMode == SEARCH_HIERARCHICAL) {
+      _plannedStep = _hierarchicalSearch.nextStep(from, to);
+      _expandedNodes = _hierarchicalSearch.getExpandedNodes();
+    }
+    else if (_searchMode == SEARCH_SCHEDULED) {
+      // keep following the last route while the scheduler searches a new one
+      _wantedGoal = to;
+      _plannedStep = followRoute(from);
+    }
+    else if (_followPaths) {
+      int index = _routeIndex;
+      _plannedStep = followRoute(from);
+      // search again at a new square of the path if the destination moved meanwhile, or if there is no more path to follow
+      boolean arrived = _routeIndex != index;
+      if (_routeGoal == -1 || (to != _routeGoal && (arrived || _plannedStep == -1))) {
+        searchRoute(from, to);
+        _plannedStep = followRoute(from);
+      }
+    }
+    else {
+      // the first node of the path is our current position
+      int length = search(from, to, _path);
+      _plannedStep = length > 1 ? _path[1] : -1;
+    }
+  }
+  
+  /**
+  Search from scratch with the search of the search mode. Returns the length of the whole path, of which the beginning is written into the buffer, or -1 if there is no path.
+  **/
+  private int search(int from, int to, int[] path) {
+    _searches++;
+    if (_searchMode == SEARCH_ASTAR) {
+      int length = _aStar.search(from, to, path);
+      _expandedNodes += _aStar.getExpandedNodes();
+      return length;
+    }
+    int length = _jumpPointSearch.search(from, to, path);
+    _expandedNodes += _jumpPointSearch.getExpandedNodes();
+    return length;
+  }
+  
+  /**
+  Search the whole path to a destination and follow it from now on. Without a path, the hunter stays until its destination moves.
+  **/
+  private void searchRoute(int from, int to) {
+    int length = search(from, to, _route);
+    if (length > _route.length) {
+      // rare, the buffer keeps the new size
+      _route = new int[length];
+      length = search(from, to, _route);
+    }
+    _routeLength = Math.max(length, 0);
+    _routeIndex = 0;
+    _routeGoal = to;
+  }
+  
+  /**
+  Go towards the square found by the last plan, if any
+  **/
+  public void apply() {
+    if (_plannedStep >= 0) {
+      // calculate x and y from the node id
+      int width = this.getWorld().getGridSize().getX();
+      int x = _plannedStep % width;
+      int y = _plannedStep / width;
+      // set the destination as the next node
+      _nextSquare.set(x, y);
+      this.setDestination(_nextSquare);
+      // move the hunter
+      move();
+    }
+  }
+  
+  /**
+  Next square of the route from the square the hunter is on. The squares of the route it reached are skipped.
+  Returns -1 without a route, at its end, or if the hunter got off it, which drops the route.
+  **/
+  private int followRoute(int from) {
+    if (_routeGoal == -1) {
+      return -1;
+    }
+    // the route may start a square behind, since the hunter kept moving while it was searched
+    for (int i = _routeIndex; i < _routeLength && i <= _routeIndex + 2; i++) {
+      if (_route[i] == from) {
+        _routeIndex = i + 1;
+        break;
+      }
+    }
+    if (_routeIndex >= _routeLength) {
+      return -1;
+    }
+    // off the route, e.g. after chasing the hero for a while. it is searched again from here
+    int width = this.getWorld().getGridSize().getX();
+    int next = _route[_routeIndex];
+    if (abs(next % width - from % width) > 1 || abs(next / width - from / width) > 1) {
+      _routeLength = 0;
+      _routeGoal = -1;
+      return -1;
+    }
+    return next;
+  }
 
-    // the search can throw a null pointer exception. we have no path in that case, so the hunter can't move. we simply exit the method.
-    LinkedList<GraphNode> nodes;
-    try {
-      nodes = _aStar.search(from, to);
+  /**
+  Destination the hunter needs a new route to, found by the last plan(). -1 if the route it follows already goes there, or if it doesn't need a route at all.
+  **/
+  public int getWantedGoal() {
+    return _wantedGoal != _routeGoal ? _wantedGoal : -1;
+  }
+
+  /**
+  Route setter, for the planning scheduler. The path starts with the square the search started from and ends with the goal. A length of 0 means there is no path to the goal,
+  so the hunter stays until it needs a route elsewhere.
+  **/
+  public void setRoute(int[] path, int length, int goal) {
+    if (length > _route.length) {
+      _route = new int[Math.max(length, 2 * _route.length)];
+    }
+    System.arraycopy(path, 0, _route, 0, length);
+    _routeLength = length;
+    _routeIndex = 0;
+    _routeGoal = goal;
+  }
+
+  /**
+  Repair the plan when squares change during a game. A route that passes within a square of the change may now be blocked, or cut a corner, so it is dropped and searched again.
+  Routes elsewhere are still good and are kept.
+  **/
+  public void walkabilityChanged(int x0, int y0, int x1, int y1) {
+    if (_incrementalSearch != null) {
+      _incrementalSearch.walkabilityChanged(x0, y0, x1, y1);
     }
-    catch (NullPointerException e) {
+    // a destination that couldn't be reached may be reachable now
+    if (_routeGoal != -1 && _routeLength == 0) {
+      _routeGoal = -1;
       return;
     }
-    
-    // try to reach the second element in the list (if it exists). the first one is our current position
-    if (nodes.pollFirst() != null) {
-      GraphNode next = nodes.pollFirst();
-      if (next != null) {
-        // calculate x and y from the node id
-        int x = next.id() % this.getWorld().getGridSize().getX();
-        int y = next.id() / this.getWorld().getGridSize().getX();
-        // set the destination as the next node
-        this.setDestination(new CoordinateInt(x, y));
-        // move the hunter
-        move();
+    int width = this.getWorld().getGridSize().getX();
+    for (int i = Math.max(0, _routeIndex - 1); i < _routeLength; i++) {
+      int x = _route[i] % width;
+      int y = _route[i] / width;
+      if (x >= x0 - 1 && x <= x1 + 1 && y >= y0 - 1 && y <= y1 + 1) {
+        _routeLength = 0;
+        _routeGoal = -1;
+        return;
       }
     }
   }
   
+  /**
+  Coordinate for the strategy to calculate the destination in and set as destination, instead of allocating a new one every tick
+  **/
+  protected CoordinateInt getTarget() {
+    return _target;
+  }
+  
   /**
   Method to find the destination of a Hunter. It will depend on the Hunter's strategy.
   **/
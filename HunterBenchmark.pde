@@ -0,0 +1,38 @@
+/**
+Benchmark one step of a hunter, i.e. calculating its destination, searching a path to it and moving.
+The hero stands still on the first column, so every step needs a long search. The hunter is put back to its start once it has caught the hero.
+**/
+public class HunterBenchmark extends Benchmark {
+
+  private Hunter _hunter;
+  private Hero _hero;
+  private CoordinateDouble _start;
+
+  /**
+  Constructor
+  **/
+  public HunterBenchmark() {
+    super("Hunter.doSomething");
+  }
+
+  /**
+  Use the follower of the game
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _hunter = simulation.getHunters().get(0);
+    _hero = simulation.getHero();
+    _start = new CoordinateDouble(_hunter.getPosition().getX(), _hunter.getPosition().getY());
+  }
+
+  /**
+  Let the hunter plan and move
+  **/
+  public int operation() {
+    _hunter.doSomething();
+    World world = _hunter.getWorld();
+    if (world.positionToGrid(_hunter.getPosition()).equals(world.positionToGrid(_hero.getPosition()))) {
+      _hunter.setPosition(new CoordinateDouble(_start.getX(), _start.getY()));
+    }
+    return _hunter.getDestination().getX();
+  }
+}
@@ -0,0 +1,303 @@
+/**
+Incremental path planning on the grid graph of the world, after D* Lite (Koenig and Likhachev) extended to a moving goal like Basic Moving Target D* Lite (Sun, Yeoh and Koenig).
+The search runs backwards from the goal, so every node knows its distance g to the goal, and it keeps that state between calls:
+- when the searcher (the start) moves, only the heuristic changes, which is absorbed by the key modifier km
+- when the goal moves, the new goal becomes the root and the old one an ordinary node, and only the nodes whose distance changed are repaired
+- when squares change walkability, only the nodes around them are repaired
+If nothing changed, getting the next step costs nothing but a look at the neighbors. If a repair takes more expansions than searching from scratch did, it is abandoned and the search starts over.
+Each searching object needs its own instance.
+**/
+public class IncrementalSearch implements WalkabilityListener {
+
+  private final double _INFINITY = Double.POSITIVE_INFINITY;
+  private final int _MIN_BUDGET = 256; // never give up a repair before this many expansions
+  private final int _KEY_PRECISION = 1000000; // keys are rounded to millionths
+
+  private GridGraph _graph;
+  private double[] _g; // distance to the goal. only valid for nodes with the current generation
+  private double[] _rhs; // one step lookahead of g. only valid for nodes with the current generation
+  private int[] _generations;
+  private int _generation;
+  private IndexedHeap _open; // the inconsistent nodes, i.e. those with g != rhs
+  private int _start;
+  private int _goal;
+  private int _last; // start when the key modifier was last updated
+  private double _km; // key modifier. sum of the heuristic between all the starts
+  private int _budget; // expansions allowed for a repair
+  private int _expanded;
+  private int[] _neighbors; // scratch space for the neighbors of a node
+  private double[] _costs; // scratch space for the costs to the neighbors of a node
+  private int[] _affected; // copy of the neighbors while they are being updated
+  private double[] _affectedCosts; // copy of the costs while the neighbors are being updated
+
+  /**
+  Constructor
+  **/
+  public IncrementalSearch(World world) {
+    _graph = world.getGridGraph();
+    int nodes = _graph.getNodeCount();
+    _g = new double[nodes];
+    _rhs = new double[nodes];
+    _generations = new int[nodes];
+    _generation = 0;
+    _open = new IndexedHeap(nodes);
+    _goal = -1;
+    _neighbors = new int[8];
+    _costs = new double[8];
+    _affected = new int[8];
+    _affectedCosts = new double[8];
+  }
+
+  /**
+  Next node on a shortest path from one node to another, planning incrementally from the state of the last call.
+  Returns -1 if there is no path or the searcher is already there.
+  **/
+  public int nextStep(int from, int to) {
+    _expanded = 0;
+    if (from == to || !_graph.isWalkable(from) || !_graph.isWalkable(to)) {
+      return -1;
+    }
+
+    if (_goal == -1) {
+      // nothing to repair
+      searchFromScratch(from, to);
+    }
+    else {
+      // the searcher moved. the heuristic is relative to it, so all keys in the open list get less precise by the distance moved
+      if (from != _start) {
+        _km += _graph.heuristic(_last, from);
+        _last = from;
+        _start = from;
+      }
+      // the goal moved. the new one becomes the root of the search and the old one gets its distance from its neighbors
+      if (to != _goal) {
+        int oldGoal = _goal;
+        _goal = to;
+        setRhs(to, 0);
+        updateVertex(to);
+        setRhs(oldGoal, bestRhs(oldGoal));
+        updateVertex(oldGoal);
+      }
+      // repair. if that gets more expensive than searching from scratch, do that instead
+      if (!computeShortestPath(_budget)) {
+        searchFromScratch(from, to);
+      }
+    }
+
+    return bestNeighbor(from);
+  }
+
+  /**
+  Number of nodes expanded by the last call to nextStep(), including those of abandoned repairs
+  **/
+  public int getExpandedNodes() {
+    return _expanded;
+  }
+
+  /**
+  Forget the state, so the next call searches from scratch
+  **/
+  public void reset() {
+    _goal = -1;
+    _open.clear();
+  }
+
+  /**
+  Repair the nodes around changed squares. Their edges, and the diagonal edges next to them, may have appeared or disappeared.
+  **/
+  public void walkabilityChanged(int x0, int y0, int x1, int y1) {
+    if (_goal == -1) {
+      return;
+    }
+    // a goal that can't be reached anymore is not worth repairing
+    if (!_graph.isWalkable(_goal)) {
+      reset();
+      return;
+    }
+    for (int y = max(0, y0 - 1); y <= min(_graph.getHeight() - 1, y1 + 1); y++) {
+      for (int x = max(0, x0 - 1); x <= min(_graph.getWidth() - 1, x1 + 1); x++) {
+        int node = _graph.node(x, y);
+        if (node != _goal) {
+          setRhs(node, bestRhs(node));
+        }
+        updateVertex(node);
+      }
+    }
+  }
+
+  /**
+  Start over with a new generation and expand until the start is consistent
+  **/
+  private void searchFromScratch(int from, int to) {
+    _generation++;
+    if (_generation == Integer.MAX_VALUE) {
+      Arrays.fill(_generations, 0);
+      _generation = 1;
+    }
+    _open.clear();
+    _start = from;
+    _last = from;
+    _goal = to;
+    _km = 0;
+    setRhs(to, 0);
+    updateVertex(to);
+    int expanded = _expanded;
+    computeShortestPath(Integer.MAX_VALUE);
+    _budget = max(_MIN_BUDGET, _expanded - expanded);
+  }
+
+  /**
+  Expand inconsistent nodes until the distance of the start is correct. Returns false if the budget of expansions ran out before.
+  **/
+  private boolean computeShortestPath(int budget) {
+    int expanded = 0;
+    while (!_open.isEmpty()) {
+      // stop when the start is consistent and no node in the open list could change its distance
+      double startKey = Math.min(g(_start), rhs(_start));
+      double startPrimary = roundKey(startKey + _km);
+      double startSecondary = roundKey(startKey);
+      double topPrimary = _open.peekPrimary();
+      double topSecondary = _open.peekSecondary();
+      boolean topBeforeStart = topPrimary < startPrimary || (topPrimary == startPrimary && topSecondary < startSecondary);
+      if (!topBeforeStart && rhs(_start) == g(_start)) {
+        break;
+      }
+      if (expanded >= budget) {
+        return false;
+      }
+      expanded++;
+      _expanded++;
+
+      int node = _open.peek();
+      double key = Math.min(g(node), rhs(node));
+      double primary = roundKey(key + _graph.heuristic(_start, node) + _km);
+      if (topPrimary < primary || (topPrimary == primary && topSecondary < roundKey(key))) {
+        // the key is outdated since the start moved
+        _open.push(node, primary, roundKey(key));
+      }
+      else if (g(node) > rhs(node)) {
+        // overconsistent: the distance got shorter. make it final and tell the neighbors
+        setG(node, rhs(node));
+        _open.remove(node);
+        int count = _graph.neighbors(node, _neighbors, _costs);
+        for (int i = 0; i < count; i++) {
+          int neighbor = _neighbors[i];
+          if (neighbor != _goal && _costs[i] + g(node) < rhs(neighbor)) {
+            setRhs(neighbor, _costs[i] + g(node));
+            updateVertex(neighbor);
+          }
+        }
+      }
+      else {
+        // underconsistent: the distance got longer. forget it and let the neighbors that went through this node look for another way
+        double oldG = g(node);
+        setG(node, _INFINITY);
+        int count = _graph.neighbors(node, _neighbors, _costs);
+        // the scratch arrays are overwritten while recomputing the neighbors, so copy them
+        System.arraycopy(_neighbors, 0, _affected, 0, count);
+        System.arraycopy(_costs, 0, _affectedCosts, 0, count);
+        for (int i = 0; i < count; i++) {
+          int neighbor = _affected[i];
+          if (neighbor != _goal && rhs(neighbor) == _affectedCosts[i] + oldG) {
+            setRhs(neighbor, bestRhs(neighbor));
+          }
+          updateVertex(neighbor);
+        }
+        updateVertex(node);
+      }
+    }
+    return true;
+  }
+
+  /**
+  Put a node into the open list with its current key if it is inconsistent, or take it out if it is not
+  **/
+  private void updateVertex(int node) {
+    double g = g(node);
+    double rhs = rhs(node);
+    if (g != rhs) {
+      double key = Math.min(g, rhs);
+      _open.push(node, roundKey(key + _graph.heuristic(_start, node) + _km), roundKey(key));
+    }
+    else {
+      _open.remove(node);
+    }
+  }
+
+  /**
+  Lowest cost to the goal through one of the neighbors of a node
+  **/
+  private double bestRhs(int node) {
+    double best = _INFINITY;
+    int count = _graph.neighbors(node, _neighbors, _costs);
+    for (int i = 0; i < count; i++) {
+      best = Math.min(best, _costs[i] + g(_neighbors[i]));
+    }
+    return best;
+  }
+
+  /**
+  Neighbor on a shortest path to the goal, or -1 if the goal can't be reached
+  **/
+  private int bestNeighbor(int node) {
+    int best = -1;
+    double bestCost = _INFINITY;
+    int count = _graph.neighbors(node, _neighbors, _costs);
+    for (int i = 0; i < count; i++) {
+      double cost = _costs[i] + g(_neighbors[i]);
+      if (cost < bestCost) {
+        bestCost = cost;
+        best = _neighbors[i];
+      }
+    }
+    return best;
+  }
+
+  /**
+  Round a key to a fixed precision. Otherwise keys that are equal but summed up in a different order could differ in the last bit and hide ties, and the search could stop before a node with the same key as the start.
+  **/
+  private double roundKey(double key) {
+    return Math.rint(key * _KEY_PRECISION) / _KEY_PRECISION;
+  }
+
+  /**
+  g getter. Nodes the current generation has not seen yet are infinitely far away.
+  **/
+  private double g(int node) {
+    return _generations[node] == _generation ? _g[node] : _INFINITY;
+  }
+
+  /**
+  rhs getter. Nodes the current generation has not seen yet are infinitely far away.
+  **/
+  private double rhs(int node) {
+    return _generations[node] == _generation ? _rhs[node] : _INFINITY;
+  }
+
+  /**
+  g setter
+  **/
+  private void setG(int node, double g) {
+    touch(node);
+    _g[node] = g;
+  }
+
+  /**
+  rhs setter
+  **/
+  private void setRhs(int node, double rhs) {
+    touch(node);
+    _rhs[node] = rhs;
+  }
+
+  /**
+  Make a node part of the current generation
+  **/
+  private void touch(int node) {
+    if (_generations[node] != _generation) {
+      _generations[node] = _generation;
+      _g[node] = _INFINITY;
+      _rhs[node] = _INFINITY;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+import java.util.Arrays;
+
+/**
+Binary min heap of int ids, e.g. graph node ids. Each id is in the heap at most once, and its key can be changed while it is in there.
+Keys are pairs compared lexicographically, i.e. the secondary key breaks ties of the primary one.
+The heap allocates only when it has to grow, so it can be cleared and reused for many searches.
+**/
+public class IndexedHeap {
+
+  private int[] _ids; // ids by heap slot
+  private double[] _primary; // primary keys by heap slot
+  private double[] _secondary; // secondary keys by heap slot
+  private int[] _slots; // heap slot by id. -1 if the id is not in the heap
+  private int _size;
+
+  /**
+  Constructor. Ids have to be lower than the capacity.
+  The heap starts with room for a sixteenth of the ids, which the open lists of searches on grids rarely outgrow, so a search seldom allocates after it started.
+  **/
+  public IndexedHeap(int capacity) {
+    _slots = new int[capacity];
+    Arrays.fill(_slots, -1);
+    int initialSize = max(1, min(capacity, max(1024, capacity / 16)));
+    _ids = new int[initialSize];
+    _primary = new double[initialSize];
+    _secondary = new double[initialSize];
+    _size = 0;
+  }
+
+  /**
+  Tell if the heap is empty
+  **/
+  public boolean isEmpty() {
+    return _size == 0;
+  }
+
+  /**
+  Number of ids in the heap
+  **/
+  public int size() {
+    return _size;
+  }
+
+  /**
+  Tell if an id is in the heap
+  **/
+  public boolean contains(int id) {
+    return _slots[id] >= 0;
+  }
+
+  /**
+  Insert an id, or change its keys if it is already in the heap
+  **/
+  public void push(int id, double primary, double secondary) {
+    int slot = _slots[id];
+    if (slot < 0) {
+      if (_size == _ids.length) {
+        grow();
+      }
+      slot = _size;
+      _size++;
+      _ids[slot] = id;
+      _slots[id] = slot;
+      _primary[slot] = primary;
+      _secondary[slot] = secondary;
+      siftUp(slot);
+    }
+    else {
+      boolean decreased = primary < _primary[slot] || (primary == _primary[slot] && secondary < _secondary[slot]);
+      _primary[slot] = primary;
+      _secondary[slot] = secondary;
+      if (decreased) {
+        siftUp(slot);
+      }
+      else {
+        siftDown(slot);
+      }
+    }
+  }
+
+  /**
+  Id with the lowest keys. The heap must not be empty.
+  **/
+  public int peek() {
+    return _ids[0];
+  }
+
+  /**
+  Primary key of the id with the lowest keys. The heap must not be empty.
+  **/
+  public double peekPrimary() {
+    return _primary[0];
+  }
+
+  /**
+  Secondary key of the id with the lowest keys. The heap must not be empty.
+  **/
+  public double peekSecondary() {
+    return _secondary[0];
+  }
+
+  /**
+  Remove and return the id with the lowest keys. The heap must not be empty.
+  **/
+  public int pop() {
+    int id = _ids[0];
+    removeSlot(0);
+    return id;
+  }
+
+  /**
+  Remove an id from the heap, if it is in there
+  **/
+  public void remove(int id) {
+    int slot = _slots[id];
+    if (slot >= 0) {
+      removeSlot(slot);
+    }
+  }
+
+  /**
+  Remove all ids. Costs as much as the ids that are left in the heap.
+  **/
+  public void clear() {
+    for (int slot = 0; slot < _size; slot++) {
+      _slots[_ids[slot]] = -1;
+    }
+    _size = 0;
+  }
+
+  /**
+  Remove the id at a heap slot by moving the last one into its place
+  **/
+  private void removeSlot(int slot) {
+    _slots[_ids[slot]] = -1;
+    _size--;
+    if (slot == _size) {
+      return;
+    }
+    move(_size, slot);
+    // the moved id may belong above or below its new slot
+    int id = _ids[slot];
+    siftUp(slot);
+    if (_slots[id] == slot) {
+      siftDown(slot);
+    }
+  }
+
+  /**
+  Move an id towards the root while its keys are lower than those of its parent
+  **/
+  private void siftUp(int slot) {
+    int id = _ids[slot];
+    double primary = _primary[slot];
+    double secondary = _secondary[slot];
+    while (slot > 0) {
+      int parent = (slot - 1) >> 1;
+      if (primary < _primary[parent] || (primary == _primary[parent] && secondary < _secondary[parent])) {
+        move(parent, slot);
+        slot = parent;
+      }
+      else {
+        break;
+      }
+    }
+    place(id, primary, secondary, slot);
+  }
+
+  /**
+  Move an id towards the leaves while its keys are higher than those of its lower child
+  **/
+  private void siftDown(int slot) {
+    int id = _ids[slot];
+    double primary = _primary[slot];
+    double secondary = _secondary[slot];
+    int half = _size >> 1;
+    while (slot < half) {
+      int child = 2 * slot + 1;
+      int right = child + 1;
+      if (right < _size && (_primary[right] < _primary[child] || (_primary[right] == _primary[child] && _secondary[right] < _secondary[child]))) {
+        child = right;
+      }
+      if (_primary[child] < primary || (_primary[child] == primary && _secondary[child] < secondary)) {
+        move(child, slot);
+        slot = child;
+      }
+      else {
+        break;
+      }
+    }
+    place(id, primary, secondary, slot);
+  }
+
+  /**
+  Copy the entry of one slot to another slot
+  **/
+  private void move(int from, int to) {
+    _ids[to] = _ids[from];
+    _primary[to] = _primary[from];
+    _secondary[to] = _secondary[from];
+    _slots[_ids[to]] = to;
+  }
+
+  /**
+  Put an entry into a slot
+  **/
+  private void place(int id, double primary, double secondary, int slot) {
+    _ids[slot] = id;
+    _primary[slot] = primary;
+    _secondary[slot] = secondary;
+    _slots[id] = slot;
+  }
+
+  /**
+  Double the number of heap slots
+  **/
+  private void grow() {
+    int size = min(_slots.length, 2 * _ids.length);
+    _ids = Arrays.copyOf(_ids, size);
+    _primary = Arrays.copyOf(_primary, size);
+    _secondary = Arrays.copyOf(_secondary, size);
+  }
+}
@@ -0,0 +1,284 @@
+/**
+Jump Point Search (Harabor and Grastien) on the grid graph of the world. It finds the same path costs as A*, but instead of opening every neighbor it jumps along
+straight and diagonal lines and only opens the squares where a shortest path may turn, the jump points. On open maps it expands far fewer nodes.
+Diagonal moves next to a not walkable square are not allowed, so the rules for pruning and jumping are those for grids without corner cutting.
+With precomputed jumps (JPS+) the straight jumps are looked up in the jump table the world keeps, instead of scanning the squares one by one.
+Like AStarSearch, a search allocates nothing and each searching object needs its own instance.
+**/
+public class JumpPointSearch {
+
+  private World _world;
+  private GridGraph _graph;
+  private boolean _precomputed;
+  private JumpTable _table; // only used with precomputed jumps
+  private double[] _g; // cost from the start. only valid for nodes with the current generation
+  private int[] _parent; // previous jump point on the best path found so far. only valid for nodes with the current generation
+  private int[] _generations; // _generation if the node is open, _generation + 1 if it is closed, anything else if the current search has not seen it
+  private int _generation;
+  private IndexedHeap _open;
+  private int _expanded;
+  private int _goal;
+  private int _goalX;
+  private int _goalY;
+  private int[] _neighbors; // scratch space for the neighbors of the start
+  private double[] _costs; // scratch space for the costs to the neighbors of the start
+
+  /**
+  Constructor. With precomputed set, the straight jumps are taken from the jump table of the world (JPS+).
+  **/
+  public JumpPointSearch(World world, boolean precomputed) {
+    _world = world;
+    _graph = world.getGridGraph();
+    _precomputed = precomputed;
+    if (precomputed) {
+      // compute the shared table now rather than in the middle of a search
+      _table = world.getJumpTable();
+    }
+    int nodes = _graph.getNodeCount();
+    _g = new double[nodes];
+    _parent = new int[nodes];
+    _generations = new int[nodes];
+    _generation = 0;
+    _open = new IndexedHeap(nodes);
+    _neighbors = new int[8];
+    _costs = new double[8];
+  }
+
+  /**
+  Search the shortest path between two nodes. The path, starting with the from node, is written square by square into the buffer. If it is longer than the buffer, only its beginning is written.
+  Returns the number of nodes of the whole path, or -1 if there is no path.
+  **/
+  public int search(int from, int to, int[] path) {
+    _expanded = 0;
+    if (!_graph.isWalkable(to) || !_graph.isWalkable(from)) {
+      return -1;
+    }
+    if (_precomputed) {
+      _table = _world.getJumpTable();
+    }
+    startGeneration();
+
+    _goal = to;
+    _goalX = _graph.getX(to);
+    _goalY = _graph.getY(to);
+    _g[from] = 0;
+    _parent[from] = -1;
+    _generations[from] = _generation;
+    double h = _graph.heuristic(from, to);
+    _open.push(from, h, h);
+
+    while (!_open.isEmpty()) {
+      int node = _open.pop();
+      if (node == to) {
+        _open.clear();
+        return writePath(to, path);
+      }
+      _generations[node] = _generation + 1;
+      _expanded++;
+
+      int x = _graph.getX(node);
+      int y = _graph.getY(node);
+      int parent = _parent[node];
+      if (parent == -1) {
+        // the start has no direction to prune by, so all the neighbors are jumped to
+        int count = _graph.neighbors(node, _neighbors, _costs);
+        for (int i = 0; i < count; i++) {
+          jumpFrom(node, x, y, _graph.getX(_neighbors[i]) - x, _graph.getY(_neighbors[i]) - y);
+        }
+        continue;
+      }
+
+      // direction of the move that reached this node
+      int dx = Integer.signum(x - _graph.getX(parent));
+      int dy = Integer.signum(y - _graph.getY(parent));
+      if (dx != 0 && dy != 0) {
+        // diagonal: go on straight in both directions and diagonally if both are free
+        boolean horizontal = _graph.isWalkable(x + dx, y);
+        boolean vertical = _graph.isWalkable(x, y + dy);
+        if (vertical) {
+          jumpFrom(node, x, y, 0, dy);
+        }
+        if (horizontal) {
+          jumpFrom(node, x, y, dx, 0);
+        }
+        if (horizontal && vertical) {
+          jumpFrom(node, x, y, dx, dy);
+        }
+      }
+      else if (dx != 0) {
+        // horizontal: go on, turn up or down, and go diagonally forward where the way ahead is free
+        boolean ahead = _graph.isWalkable(x + dx, y);
+        boolean down = _graph.isWalkable(x, y + 1);
+        boolean up = _graph.isWalkable(x, y - 1);
+        if (ahead) {
+          jumpFrom(node, x, y, dx, 0);
+          if (down) {
+            jumpFrom(node, x, y, dx, 1);
+          }
+          if (up) {
+            jumpFrom(node, x, y, dx, -1);
+          }
+        }
+        if (down) {
+          jumpFrom(node, x, y, 0, 1);
+        }
+        if (up) {
+          jumpFrom(node, x, y, 0, -1);
+        }
+      }
+      else {
+        // vertical: the same turned by 90 degrees
+        boolean ahead = _graph.isWalkable(x, y + dy);
+        boolean right = _graph.isWalkable(x + 1, y);
+        boolean left = _graph.isWalkable(x - 1, y);
+        if (ahead) {
+          jumpFrom(node, x, y, 0, dy);
+          if (right) {
+            jumpFrom(node, x, y, 1, dy);
+          }
+          if (left) {
+            jumpFrom(node, x, y, -1, dy);
+          }
+        }
+        if (right) {
+          jumpFrom(node, x, y, 1, 0);
+        }
+        if (left) {
+          jumpFrom(node, x, y, -1, 0);
+        }
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+  Query if the straight jumps are taken from the jump table of the world (JPS+)
+  **/
+  public boolean isPrecomputed() {
+    return _precomputed;
+  }
+
+  /**
+  Number of jump points expanded by the last search
+  **/
+  public int getExpandedNodes() {
+    return _expanded;
+  }
+
+  /**
+  Jump from a node in a direction and open the jump point found, if any
+  **/
+  private void jumpFrom(int node, int x, int y, int dx, int dy) {
+    int jumpPoint = dx != 0 && dy != 0 ? jumpDiagonal(x, y, dx, dy) : jumpStraight(x, y, dx, dy);
+    if (jumpPoint == -1) {
+      return;
+    }
+    // the way to the jump point is a straight or diagonal line, so its cost is the octile distance
+    double g = _g[node] + _graph.heuristic(node, jumpPoint);
+    int generation = _generations[jumpPoint];
+    if (generation == _generation + 1 || (generation == _generation && g >= _g[jumpPoint])) {
+      return;
+    }
+    _g[jumpPoint] = g;
+    _parent[jumpPoint] = node;
+    _generations[jumpPoint] = _generation;
+    // among equal estimates, prefer the nodes closer to the goal
+    double h = _graph.heuristic(jumpPoint, _goal);
+    _open.push(jumpPoint, g + h, h);
+  }
+
+  /**
+  Follow a straight line from x, y (not included) until the goal or a jump point. Returns it, or -1 if the line runs into a not walkable square first.
+  **/
+  private int jumpStraight(int x, int y, int dx, int dy) {
+    if (_precomputed) {
+      int jump = _table.getJump(_graph.node(x, y), dx, dy);
+      int reach = abs(jump);
+      // the goal is on the line and can be reached before it ends
+      int goalSteps = dx != 0 ? (_goalX - x) * dx : (_goalY - y) * dy;
+      boolean onLine = dx != 0 ? _goalY == y : _goalX == x;
+      if (onLine && goalSteps > 0 && goalSteps <= reach) {
+        return _goal;
+      }
+      return jump > 0 ? _graph.node(x + jump * dx, y + jump * dy) : -1;
+    }
+    while (true) {
+      x += dx;
+      y += dy;
+      if (!_graph.isWalkable(x, y)) {
+        return -1;
+      }
+      int node = _graph.node(x, y);
+      if (node == _goal || _graph.hasForcedNeighbor(x, y, dx, dy)) {
+        return node;
+      }
+    }
+  }
+
+  /**
+  Follow a diagonal line from x, y (not included) until the goal or a jump point. A square on the diagonal is a jump point if a straight jump from it finds one.
+  Returns it, or -1 if the diagonal is blocked first.
+  **/
+  private int jumpDiagonal(int x, int y, int dx, int dy) {
+    while (true) {
+      // both squares next to a diagonal move need to be walkable
+      if (!_graph.isWalkable(x + dx, y) || !_graph.isWalkable(x, y + dy) || !_graph.isWalkable(x + dx, y + dy)) {
+        return -1;
+      }
+      x += dx;
+      y += dy;
+      int node = _graph.node(x, y);
+      if (node == _goal || jumpStraight(x, y, dx, 0) != -1 || jumpStraight(x, y, 0, dy) != -1) {
+        return node;
+      }
+    }
+  }
+
+  /**
+  Follow the parents back from the goal and write the beginning of the path, square by square, into the buffer. Returns the length of the whole path.
+  **/
+  private int writePath(int to, int[] path) {
+    int length = 1;
+    for (int node = to; _parent[node] != -1; node = _parent[node]) {
+      int parent = _parent[node];
+      length += max(abs(_graph.getX(node) - _graph.getX(parent)), abs(_graph.getY(node) - _graph.getY(parent)));
+    }
+    int index = length - 1;
+    for (int node = to; node != -1; node = _parent[node]) {
+      int parent = _parent[node];
+      if (parent == -1) {
+        if (index < path.length) {
+          path[index] = node;
+        }
+        break;
+      }
+      // the squares between two jump points, from the later one back to the one after the earlier one
+      int x = _graph.getX(node);
+      int y = _graph.getY(node);
+      int dx = Integer.signum(_graph.getX(parent) - x);
+      int dy = Integer.signum(_graph.getY(parent) - y);
+      while (_graph.node(x, y) != parent) {
+        if (index < path.length) {
+          path[index] = _graph.node(x, y);
+        }
+        index--;
+        x += dx;
+        y += dy;
+      }
+    }
+    return length;
+  }
+
+  /**
+  Start a new search. Bumping the generation invalidates all the scratch memory of the previous search without touching it.
+  **/
+  private void startGeneration() {
+    _generation += 2;
+    // start over before the counter overflows
+    if (_generation >= Integer.MAX_VALUE - 2) {
+      Arrays.fill(_generations, 0);
+      _generation = 2;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/**
+Benchmark a single Jump Point Search between random walkable squares, with or without precomputed jumps. The pairs are the same as for the A* benchmark.
+**/
+public class JumpPointSearchBenchmark extends Benchmark {
+
+  private final int _PAIRS = 64;
+
+  private boolean _precomputed;
+  private JumpPointSearch _jumpPointSearch;
+  private int[] _nodes;
+  private int[] _path;
+  private int _next;
+
+  /**
+  Constructor
+  **/
+  public JumpPointSearchBenchmark(boolean precomputed) {
+    super(precomputed ? "JumpPointSearch+.search" : "JumpPointSearch.search");
+    _precomputed = precomputed;
+  }
+
+  /**
+  Pick the start and goal squares. With precomputed jumps the table is computed here, since a game computes it only once.
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _jumpPointSearch = new JumpPointSearch(simulation.getWorld(), _precomputed);
+    _nodes = randomWalkableNodes(simulation.getWorld(), 2 * _PAIRS);
+    _path = new int[2];
+    _next = 0;
+    if (_precomputed) {
+      simulation.getWorld().getJumpTable();
+    }
+  }
+
+  /**
+  Search the next pair
+  **/
+  public int operation() {
+    int length = _jumpPointSearch.search(_nodes[_next], _nodes[_next + 1], _path);
+    _next = (_next + 2) % _nodes.length;
+    return length;
+  }
+}
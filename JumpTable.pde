@@ -0,0 +1,176 @@
+import java.nio.ShortBuffer;
+
+/**
+Precomputed straight jumps of Jump Point Search for every square and the four straight directions, as used by JPS+.
+A positive entry is the number of steps to the next jump point in that direction, i.e. the next square with a forced neighbor.
+An entry of zero or less is minus the number of steps that can be taken before running into a not walkable square or the border without passing a jump point.
+The world computes the table once for the obstacles of a game and all the searches share it. When a square changes during a game, only the entries it can reach are computed again.
+**/
+public class JumpTable {
+
+  private final int _MAX_JUMP = Short.MAX_VALUE; // longer jumps are cut into pieces
+
+  private GridGraph _graph;
+  private int _width;
+  private int _height;
+  private short[] _right;
+  private short[] _left;
+  private short[] _down;
+  private short[] _up;
+  private boolean _valid;
+
+  /**
+  Constructor. The table has to be computed before using it.
+  **/
+  public JumpTable(World world) {
+    _graph = world.getGridGraph();
+    _width = _graph.getWidth();
+    _height = _graph.getHeight();
+    int nodes = _graph.getNodeCount();
+    _right = new short[nodes];
+    _left = new short[nodes];
+    _down = new short[nodes];
+    _up = new short[nodes];
+    _valid = false;
+  }
+
+  /**
+  Compute the jumps of all the squares. Each line is scanned against the direction of the jumps, so every entry follows from the one of the next square.
+  **/
+  public void compute() {
+    for (int y = 0; y < _height; y++) {
+      computeRow(y);
+    }
+    for (int x = 0; x < _width; x++) {
+      computeColumn(x);
+    }
+    _valid = true;
+  }
+
+  /**
+  Bring the table up to date after the square at x, y changed walkability. The jumps along a line depend on the squares of the line and on the lines next to it,
+  where the forced neighbors are, so the three rows and the three columns around the square are updated. Does nothing if the table isn't valid anyway.
+  **/
+  public void update(int x, int y) {
+    if (!_valid) {
+      return;
+    }
+    for (int row = Math.max(0, y - 1); row <= Math.min(_height - 1, y + 1); row++) {
+      updateLine(x, row, 1, 0, _right);
+      updateLine(x, row, -1, 0, _left);
+    }
+    for (int column = Math.max(0, x - 1); column <= Math.min(_width - 1, x + 1); column++) {
+      updateLine(column, y, 0, 1, _down);
+      updateLine(column, y, 0, -1, _up);
+    }
+  }
+
+  /**
+  Compute the entries of a line for a direction again, from the square at x, y against the direction. The squares after it don't depend on the change.
+  The entry of a square only depends on the squares next to it and on the entry of the next square, so the update stops at the first entry that stays the same
+  more than a square before the change.
+  **/
+  private void updateLine(int x, int y, int dx, int dy, short[] jumps) {
+    for (int cx = x, cy = y; cx >= 0 && cx < _width && cy >= 0 && cy < _height; cx -= dx, cy -= dy) {
+      short entry = entry(cx, cy, dx, dy, jumps);
+      int node = _graph.node(cx, cy);
+      int behind = (x - cx) * dx + (y - cy) * dy;
+      if (behind >= 2 && entry == jumps[node]) {
+        return;
+      }
+      jumps[node] = entry;
+    }
+  }
+
+  /**
+  Compute the jumps to the right and to the left of a row
+  **/
+  private void computeRow(int y) {
+    for (int x = _width - 1; x >= 0; x--) {
+      _right[_graph.node(x, y)] = entry(x, y, 1, 0, _right);
+    }
+    for (int x = 0; x < _width; x++) {
+      _left[_graph.node(x, y)] = entry(x, y, -1, 0, _left);
+    }
+  }
+
+  /**
+  Compute the jumps down and up of a column
+  **/
+  private void computeColumn(int x) {
+    for (int y = _height - 1; y >= 0; y--) {
+      _down[_graph.node(x, y)] = entry(x, y, 0, 1, _down);
+    }
+    for (int y = 0; y < _height; y++) {
+      _up[_graph.node(x, y)] = entry(x, y, 0, -1, _up);
+    }
+  }
+
+  /**
+  Set the jumps of all the squares from shorts, e.g. of a map file, instead of computing them. They have to match the squares of the world.
+  **/
+  public void read(ShortBuffer right, ShortBuffer left, ShortBuffer down, ShortBuffer up) {
+    right.get(_right);
+    left.get(_left);
+    down.get(_down);
+    up.get(_up);
+    _valid = true;
+  }
+
+  /**
+  Put the jumps of all the squares into shorts, e.g. of a map file
+  **/
+  public void write(ShortBuffer right, ShortBuffer left, ShortBuffer down, ShortBuffer up) {
+    right.put(_right);
+    left.put(_left);
+    down.put(_down);
+    up.put(_up);
+  }
+
+  /**
+  Forget the jumps, e.g. because the obstacles have changed. The table has to be computed again before using it.
+  **/
+  public void invalidate() {
+    _valid = false;
+  }
+
+  /**
+  Query if the table is up to date
+  **/
+  public boolean isValid() {
+    return _valid;
+  }
+
+  /**
+  Entry of a node for a straight direction
+  **/
+  public int getJump(int node, int dx, int dy) {
+    if (dx > 0) {
+      return _right[node];
+    }
+    if (dx < 0) {
+      return _left[node];
+    }
+    return dy > 0 ? _down[node] : _up[node];
+  }
+
+  /**
+  Entry of the square at x, y, given the entries of the squares after it
+  **/
+  private short entry(int x, int y, int dx, int dy, short[] jumps) {
+    int nextX = x + dx;
+    int nextY = y + dy;
+    if (!_graph.isWalkable(x, y) || !_graph.isWalkable(nextX, nextY)) {
+      return 0;
+    }
+    if (_graph.hasForcedNeighbor(nextX, nextY, dx, dy)) {
+      return 1;
+    }
+    int next = jumps[_graph.node(nextX, nextY)];
+    // a jump longer than a short can hold ends at the next square, as if it was a jump point. that only costs an expansion
+    if (next >= _MAX_JUMP || next <= -_MAX_JUMP) {
+      return 1;
+    }
+    return (short) (next > 0 ? next + 1 : next - 1);
+  }
+}
@@ -0,0 +1,48 @@
+import pathfinder.*;
+import java.util.LinkedList;
+
+/**
+Benchmark a single search of the path finding library between the same squares as SearchBenchmark, as a baseline for AStarSearch
+**/
+public class LibrarySearchBenchmark extends Benchmark {
+
+  private final int _PAIRS = 64;
+
+  private GraphSearch_Astar _aStar;
+  private int[] _nodes;
+  private int _next;
+
+  /**
+  Constructor
+  **/
+  public LibrarySearchBenchmark() {
+    super("GraphSearch_Astar.search");
+  }
+
+  /**
+  Pick the start and goal squares
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _aStar = new GraphSearch_Astar(simulation.getWorld().getGraph());
+    _nodes = randomWalkableNodes(simulation.getWorld(), 2 * _PAIRS);
+    _next = 0;
+  }
+
+  /**
+  Search the next pair. The library returns no list or throws if there is no path.
+  **/
+  public int operation() {
+    int length = -1;
+    try {
+      LinkedList<GraphNode> nodes = _aStar.search(_nodes[_next], _nodes[_next + 1]);
+      if (nodes != null) {
+        length = nodes.size();
+      }
+    }
+    catch (NullPointerException e) {
+      length = -1;
+    }
+    _next = (_next + 2) % _nodes.length;
+    return length;
+  }
+}
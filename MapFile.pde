@@ -0,0 +1,263 @@
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+A map prepared ahead of a game: the squares that can be visited, the goal and the start of the hero, and optionally the jumps of JPS+ so they aren't computed when the game starts.
+A world built from a map plays every game on it instead of placing random obstacles (see World.restoreMap()).
+Maps are written in a compact binary format made to be memory-mapped: a header of ten ints (magic, version, width, height, goal x and y, hero start x and y, flags, zero),
+then the walkable grid as longs in the layout of WalkableGrid, then, if flag 1 is set, the jumps as shorts for every square to the right, to the left, down and up (see JumpTable).
+Every section starts on a multiple of 8 bytes. Opening a file only maps it, so a large map opens in milliseconds in a world without a window. Its sections are read into the world when it asks for them.
+**/
+public class MapFile {
+
+  private final int _MAGIC = 0x484D4150; // "HMAP"
+  private final int _VERSION = 1;
+  private final int _HEADER_BYTES = 40;
+  private final int _FLAG_JUMPS = 1;
+  private final int _DIRECTIONS = 4; // of the jumps
+
+  private CoordinateInt _gridSize;
+  private CoordinateInt _goal;
+  private CoordinateInt _heroStart;
+  private ByteBuffer _words; // the walkable grid
+  private ByteBuffer[] _jumps; // by direction, right, left, down and up. null without jumps
+
+  /**
+  Constructor for the map of a world as it is now, with the squares the goal and the hero start on. The walkable grid is copied, and so are the jumps if the world has computed them.
+  **/
+  public MapFile(World world, CoordinateInt goal, CoordinateInt heroStart) {
+    _gridSize = new CoordinateInt(world.getGridSize().getX(), world.getGridSize().getY());
+    _goal = new CoordinateInt(goal.getX(), goal.getY());
+    _heroStart = new CoordinateInt(heroStart.getX(), heroStart.getY());
+    WalkableGrid walkable = world.getWalkableGrid();
+    _words = ByteBuffer.allocate(wordCount() * 8);
+    walkable.writeWords(_words.asLongBuffer());
+    JumpTable jumpTable = world.getComputedJumpTable();
+    if (jumpTable != null) {
+      _jumps = new ByteBuffer[_DIRECTIONS];
+      for (int direction = 0; direction < _DIRECTIONS; direction++) {
+        _jumps[direction] = ByteBuffer.allocate(nodeCount() * 2);
+      }
+      jumpTable.write(jumpBuffer(0), jumpBuffer(1), jumpBuffer(2), jumpBuffer(3));
+    }
+  }
+
+  /**
+  Constructor that maps a file written by write(). The file is not read, only checked for its size, and it can be closed by the system once the map is no longer used.
+  **/
+  public MapFile(File file) throws IOException {
+    RandomAccessFile access = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = access.getChannel();
+      if (channel.size() < _HEADER_BYTES) {
+        throw new IOException("Not a map");
+      }
+      int flags = readHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, _HEADER_BYTES));
+
+      // each section is mapped on its own, so none is larger than a buffer can be
+      long position = _HEADER_BYTES;
+      long wordBytes = wordCount() * 8L;
+      long jumpBytes = (flags & _FLAG_JUMPS) != 0 ? nodeCount() * 2L : 0;
+      if (channel.size() != position + wordBytes + align(jumpBytes) * _DIRECTIONS) {
+        throw new IOException("Truncated map");
+      }
+      _words = channel.map(FileChannel.MapMode.READ_ONLY, position, wordBytes);
+      position += wordBytes;
+      if (jumpBytes > 0) {
+        _jumps = new ByteBuffer[_DIRECTIONS];
+        for (int direction = 0; direction < _DIRECTIONS; direction++) {
+          _jumps[direction] = channel.map(FileChannel.MapMode.READ_ONLY, position, jumpBytes);
+          position += align(jumpBytes);
+        }
+      }
+    }
+    finally {
+      // the mappings stay valid without the file being open
+      access.close();
+    }
+  }
+
+  /**
+  Constructor that reads a map written by write() from a stream, e.g. embedded in a recording, into memory. Exactly the bytes of the map are read.
+  **/
+  public MapFile(InputStream input) throws IOException {
+    DataInputStream data = new DataInputStream(input);
+    byte[] header = new byte[_HEADER_BYTES];
+    data.readFully(header);
+    int flags = readHeader(ByteBuffer.wrap(header));
+    _words = ByteBuffer.wrap(readSection(data, wordCount() * 8L));
+    if ((flags & _FLAG_JUMPS) != 0) {
+      _jumps = new ByteBuffer[_DIRECTIONS];
+      for (int direction = 0; direction < _DIRECTIONS; direction++) {
+        _jumps[direction] = ByteBuffer.wrap(readSection(data, nodeCount() * 2L));
+        data.skipBytes((int) (align(nodeCount() * 2L) - nodeCount() * 2L));
+      }
+    }
+  }
+
+  /**
+  Read the header from the start of a buffer and check it. Returns the flags.
+  **/
+  private int readHeader(ByteBuffer header) throws IOException {
+    if (header.getInt() != _MAGIC) {
+      throw new IOException("Not a map");
+    }
+    int version = header.getInt();
+    if (version != _VERSION) {
+      throw new IOException("Unsupported map version " + version);
+    }
+    _gridSize = new CoordinateInt(header.getInt(), header.getInt());
+    _goal = new CoordinateInt(header.getInt(), header.getInt());
+    _heroStart = new CoordinateInt(header.getInt(), header.getInt());
+    int flags = header.getInt();
+    if (_gridSize.getX() <= 0 || _gridSize.getY() <= 0 || (long) _gridSize.getX() * _gridSize.getY() > Integer.MAX_VALUE
+      || !isOnGrid(_goal) || !isOnGrid(_heroStart)) {
+      throw new IOException("Corrupt map header");
+    }
+    return flags;
+  }
+
+  /**
+  Read a section of a map from a stream into an array
+  **/
+  private byte[] readSection(DataInputStream data, long bytes) throws IOException {
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IOException("Map too large to read from a stream");
+    }
+    byte[] section = new byte[(int) bytes];
+    data.readFully(section);
+    return section;
+  }
+
+  /**
+  Write the map in the format described above
+  **/
+  public void write(OutputStream output) throws IOException {
+    write(output, true);
+  }
+
+  /**
+  Write the map in the format described above, leaving out the jumps unless asked for, e.g. to keep a copy of the map small
+  **/
+  public void write(OutputStream output, boolean withJumps) throws IOException {
+    boolean writeJumps = withJumps && _jumps != null;
+    ByteBuffer header = ByteBuffer.allocate(_HEADER_BYTES);
+    header.putInt(_MAGIC);
+    header.putInt(_VERSION);
+    header.putInt(_gridSize.getX());
+    header.putInt(_gridSize.getY());
+    header.putInt(_goal.getX());
+    header.putInt(_goal.getY());
+    header.putInt(_heroStart.getX());
+    header.putInt(_heroStart.getY());
+    header.putInt(writeJumps ? _FLAG_JUMPS : 0);
+    header.putInt(0);
+    header.flip();
+
+    WritableByteChannel channel = Channels.newChannel(output);
+    writeFully(channel, header);
+    writeFully(channel, _words.duplicate());
+    if (writeJumps) {
+      long padding = align(nodeCount() * 2L) - nodeCount() * 2L;
+      for (ByteBuffer jumps : _jumps) {
+        writeFully(channel, jumps.duplicate());
+        writeFully(channel, ByteBuffer.allocate((int) padding));
+      }
+    }
+  }
+
+  /**
+  Grid size getter
+  **/
+  public CoordinateInt getGridSize() {
+    return _gridSize;
+  }
+
+  /**
+  Goal getter
+  **/
+  public CoordinateInt getGoal() {
+    return _goal;
+  }
+
+  /**
+  Hero start getter
+  **/
+  public CoordinateInt getHeroStart() {
+    return _heroStart;
+  }
+
+  /**
+  Query if the map holds the jumps of JPS+
+  **/
+  public boolean hasJumps() {
+    return _jumps != null;
+  }
+
+  /**
+  Set a walkable grid of the size of the map to the squares of the map
+  **/
+  public void readWalkability(WalkableGrid walkable) {
+    walkable.readWords(_words.duplicate().asLongBuffer());
+  }
+
+  /**
+  Set a jump table of the size of the map to the jumps of the map. The map has to hold jumps.
+  **/
+  public void readJumps(JumpTable jumpTable) {
+    jumpTable.read(jumpBuffer(0), jumpBuffer(1), jumpBuffer(2), jumpBuffer(3));
+  }
+
+  /**
+  Jumps of a direction as shorts, from the first square on
+  **/
+  private ShortBuffer jumpBuffer(int direction) {
+    return _jumps[direction].duplicate().asShortBuffer();
+  }
+
+  /**
+  Number of longs of the walkable grid
+  **/
+  private int wordCount() {
+    return ((_gridSize.getX() + 63) >>> 6) * _gridSize.getY();
+  }
+
+  /**
+  Number of squares
+  **/
+  private int nodeCount() {
+    return _gridSize.getX() * _gridSize.getY();
+  }
+
+  /**
+  Query if a square is on the grid of the map
+  **/
+  private boolean isOnGrid(CoordinateInt square) {
+    return square.getX() >= 0 && square.getX() < _gridSize.getX() && square.getY() >= 0 && square.getY() < _gridSize.getY();
+  }
+
+  /**
+  Number of bytes rounded up to a multiple of 8, where the next section starts
+  **/
+  private long align(long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+
+  /**
+  Write all the remaining bytes of a buffer to a channel
+  **/
+  private void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+/**
+Benchmark moving an agent towards its destination
+**/
+public class MoveBenchmark extends Benchmark {
+
+  private Hero _hero;
+  private CoordinateDouble _start; // where the hero goes back to once it stops moving
+
+  /**
+  Constructor
+  **/
+  public MoveBenchmark() {
+    super("Agent.move");
+  }
+
+  /**
+  Send the hero to the goal, so it keeps moving during the measurement
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _hero = simulation.getHero();
+    _hero.setDestination(simulation.getRules().getGoal());
+    _start = new CoordinateDouble(_hero.getPosition().getX(), _hero.getPosition().getY());
+  }
+
+  /**
+  Move the hero one step. Once it is on the goal or stuck against an obstacle, it is put back at its start, so the steps measured are real moves.
+  **/
+  public int operation() {
+    double x = _hero.getPosition().getX();
+    double y = _hero.getPosition().getY();
+    _hero.move();
+    if (_hero.getPosition().getX() == x && _hero.getPosition().getY() == y) {
+      _hero.setPosition(_start);
+    }
+    return (int) _hero.getPosition().getX();
+  }
+}
@@ -8,6 +8,8 @@ public class Obstacle implements Drawable {
   private double _currentSprite;
   private double _spriteStep; 
   private World _world;
+  private CoordinateDouble _worldPosition; // scratch space for drawing
+  private CoordinateInt _screenPosition; // scratch space for drawing
   
   /**
   Constructor
@@ -18,6 +20,8 @@ public class Obstacle implements Drawable {
     _world = world;
     _currentSprite = 0;
     _spriteStep = 0.16;
+    _worldPosition = new CoordinateDouble(0, 0);
+    _screenPosition = new CoordinateInt(0, 0);
   }
   
   /**
@@ -27,14 +31,25 @@ public class Obstacle implements Drawable {
     _position = position;
   }
   
+  /**
+  Position setter for the square at x, y. Reuses the position object if there is one.
+  **/
+  public void setPosition(int x, int y) {
+    if (_position == null) {
+      _position = new CoordinateInt(x, y);
+    }
+    else {
+      _position.set(x, y);
+    }
+  }
+  
   /**
   Draw the obstacle sprite. The obstacle has a short animation. 
   **/
   public void draw(View view) {
-    imageMode(CENTER);
-    CoordinateInt position = view.convert(_world.gridCenterToPosition(_position)); 
-    // display the current sprite
-    image(_sprites[(int) _currentSprite], position.getX(), position.getY());
+    CoordinateInt position = view.convert(_world.gridCenterToPosition(_position, _worldPosition), _screenPosition);
+    // display the current sprite with the others of the frame
+    view.getSpriteBatch().add(_sprites[(int) _currentSprite], position.getX(), position.getY(), 0);
     // next step in animation
     _currentSprite += _spriteStep;
     // the animation loops indefinitely
@@ -0,0 +1,43 @@
+/**
+Benchmark an obstacle appearing on a random walkable square and disappearing again during a game, with the graph for the path finding library and the jumps
+up to date. Only the edges and the jumps around the square are patched.
+**/
+public class ObstacleChangeBenchmark extends Benchmark {
+
+  private final int _SQUARES = 64;
+
+  private World _world;
+  private int[] _nodes;
+  private int _next;
+
+  /**
+  Constructor
+  **/
+  public ObstacleChangeBenchmark() {
+    super("World.addObstacle+removeObstacle");
+  }
+
+  /**
+  Pick the squares. The graph and the jumps are built here, since a game builds them only once.
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _world = simulation.getWorld();
+    _world.getGraph();
+    _world.getJumpTable();
+    _nodes = randomWalkableNodes(_world, _SQUARES);
+    _next = 0;
+  }
+
+  /**
+  Put an obstacle on the next square and take it off again
+  **/
+  public int operation() {
+    int width = _world.getGridSize().getX();
+    int x = _nodes[_next] % width;
+    int y = _nodes[_next] / width;
+    _world.addObstacle(x, y);
+    _world.removeObstacle(x, y);
+    _next = (_next + 1) % _nodes.length;
+    return _world.getJumpTable().getJump(_nodes[_next], 1, 0);
+  }
+}
@@ -0,0 +1,323 @@
+import java.util.Random;
+
+/**
+Places the obstacles of a game on random squares of the walkable grid, except on the first and the last column, where the hero starts and the goal is.
+The squares are chosen in one pass over the grid, each with a probability of the obstacles left to place over the squares left to visit (selection sampling).
+There is no rejection of taken squares, so dense maps take no longer than sparse ones, and the grid is written in order.
+Then a search from the first column to the last one that may cross obstacles at cost 1 (0-1 BFS) finds the crossing with the fewest obstacles.
+If it has any, the map can't be won, so they are moved to free squares off that crossing, drawn by a partial shuffle. Moving them can't block the crossing again.
+On nearly full maps the crossing may be too long to leave room for them. Then the straight row with the fewest obstacles is cleared instead.
+Everything runs in time linear in the number of squares. The arrays are kept from one placement to the next.
+**/
+public class ObstaclePlacer {
+
+  private final int _SOURCE = 4; // direction of the squares of the first column, where the search starts
+
+  private WalkableGrid _walkable;
+  private int _width;
+  private int _height;
+  private int[] _costs; // obstacles on the cheapest way from the first column by square. -1 for the squares of the crossing
+  private byte[] _from; // direction of the previous square on the cheapest way (0 up, 1 down, 2 left, 3 right)
+  private int[] _deque; // circular
+  private int _head;
+  private int _size;
+  private long _state; // of the random generator for the squares
+
+  /**
+  Constructor
+  **/
+  public ObstaclePlacer(WalkableGrid walkable) {
+    _walkable = walkable;
+    _width = walkable.getWidth();
+    _height = walkable.getHeight();
+  }
+
+  /**
+  Make all squares walkable and place a number of obstacles. The squares of the obstacles (y * width + x) are written to squares.
+  Returns how many obstacles had to be moved to keep the last column reachable from the first one.
+  **/
+  public int place(int count, Random random, int[] squares) {
+    _walkable.fill(true);
+    if (count == 0) {
+      return 0;
+    }
+    // at least one square of each column has to stay free for a crossing
+    int room = _width > 2 ? (_width - 2) * (_height - 1) : 0;
+    if (count > room) {
+      throw new IllegalArgumentException("No room for " + count + " obstacles on a " + _width + "x" + _height + " grid");
+    }
+    prepare();
+
+    // go through the squares off the first and the last column in order, taking each with the probability of the obstacles left over the squares left.
+    // that is a random number per square, so they come from a generator much cheaper than the world's, seeded from it to keep the games reproducible
+    _state = random.nextLong();
+    int candidates = (_width - 2) * _height;
+    int left = candidates;
+    int placed = 0;
+    for (int y = 0; y < _height && placed < count; y++) {
+      for (int x = 1; x < _width - 1 && placed < count; x++) {
+        // a random number below left, scaled from 31 random bits
+        if (((nextBits() * (long) left) >>> 31) < count - placed) {
+          _walkable.setWalkable(x, y, false);
+          squares[placed++] = y * _width + x;
+        }
+        left--;
+      }
+    }
+
+    // make sure the map can be won
+    int end = searchCrossing();
+    if (_costs[end] == 0) {
+      return 0;
+    }
+    int moved;
+    if (crossingLength(end) <= candidates - count) {
+      moved = clearCrossing(end);
+    }
+    else {
+      moved = clearRow(emptiestRow());
+    }
+
+    // move the obstacles taken off to free squares off the crossing, drawn without repetition
+    int[] free = freeSquares(candidates - count);
+    for (int i = 0, drawn = 0; i < count; i++) {
+      if (_costs[squares[i]] != -1) {
+        continue;
+      }
+      int j = drawn + random.nextInt(free.length - drawn);
+      int square = free[j];
+      free[j] = free[drawn];
+      free[drawn++] = square;
+      _walkable.setWalkable(square % _width, square / _width, false);
+      squares[i] = square;
+    }
+    return moved;
+  }
+
+  /**
+  Make room for the search
+  **/
+  private void prepare() {
+    if (_costs == null) {
+      _costs = new int[_width * _height];
+      _from = new byte[_width * _height];
+      _deque = new int[1024];
+    }
+  }
+
+  /**
+  List the free squares off the first and the last column and off the crossing. There are at most count of them.
+  **/
+  private int[] freeSquares(int count) {
+    int[] free = new int[count];
+    int i = 0;
+    for (int y = 0; y < _height; y++) {
+      for (int x = 1; x < _width - 1; x++) {
+        int square = y * _width + x;
+        if (_walkable.isWalkable(x, y) && _costs[square] != -1) {
+          free[i++] = square;
+        }
+      }
+    }
+    return Arrays.copyOf(free, i);
+  }
+
+  /**
+  31 random bits from the generator for the squares (SplitMix64)
+  **/
+  private long nextBits() {
+    _state += 0x9E3779B97F4A7C15L;
+    long z = _state;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return (z ^ (z >>> 31)) >>> 33;
+  }
+
+  /**
+  Find the way from the first column to the last one crossing the fewest obstacles. Returns the square where it reaches the last column.
+  Squares are taken from the front of the deque in order of cost, so the first one of the last column is the cheapest.
+  **/
+  private int searchCrossing() {
+    Arrays.fill(_costs, Integer.MAX_VALUE);
+    _head = 0;
+    _size = 0;
+    // the first column has no obstacles
+    for (int y = 0; y < _height; y++) {
+      int square = y * _width;
+      _costs[square] = 0;
+      _from[square] = _SOURCE;
+      pushBack(square);
+    }
+    while (true) {
+      int square = popFront();
+      int x = square % _width;
+      int y = square / _width;
+      if (x == _width - 1) {
+        return square;
+      }
+      int cost = _costs[square];
+      if (y > 0) {
+        relax(square - _width, x, y - 1, cost, 1);
+      }
+      if (y < _height - 1) {
+        relax(square + _width, x, y + 1, cost, 0);
+      }
+      if (x > 0) {
+        relax(square - 1, x - 1, y, cost, 3);
+      }
+      relax(square + 1, x + 1, y, cost, 2);
+    }
+  }
+
+  /**
+  Reach the neighbor square at x, y for the cost of the square plus one if the neighbor is an obstacle. from is the direction of the square seen from the neighbor.
+  **/
+  private void relax(int neighbor, int x, int y, int cost, int from) {
+    boolean free = _walkable.isWalkable(x, y);
+    int neighborCost = free ? cost : cost + 1;
+    if (neighborCost >= _costs[neighbor]) {
+      return;
+    }
+    _costs[neighbor] = neighborCost;
+    _from[neighbor] = (byte) from;
+    if (free) {
+      pushFront(neighbor);
+    }
+    else {
+      pushBack(neighbor);
+    }
+  }
+
+  /**
+  Number of squares of the crossing ending at a square that could take an obstacle, i.e. that are not on the first or the last column
+  **/
+  private int crossingLength(int end) {
+    int length = 0;
+    for (int square = end; square != -1; square = previous(square)) {
+      int x = square % _width;
+      if (x > 0 && x < _width - 1) {
+        length++;
+      }
+    }
+    return length;
+  }
+
+  /**
+  Follow the crossing back from its end, take the obstacles off it and mark its squares. Returns the number of obstacles taken off.
+  **/
+  private int clearCrossing(int end) {
+    int cleared = 0;
+    int square = end;
+    while (square != -1) {
+      int previous = previous(square);
+      cleared += clear(square);
+      square = previous;
+    }
+    return cleared;
+  }
+
+  /**
+  Previous square on the cheapest way to a square. -1 for the squares of the first column.
+  **/
+  private int previous(int square) {
+    int from = _from[square];
+    if (from == 0) {
+      return square - _width;
+    }
+    if (from == 1) {
+      return square + _width;
+    }
+    if (from == 2) {
+      return square - 1;
+    }
+    if (from == 3) {
+      return square + 1;
+    }
+    return -1;
+  }
+
+  /**
+  Row with the fewest obstacles
+  **/
+  private int emptiestRow() {
+    int best = 0;
+    int bestWalkable = -1;
+    for (int y = 0; y < _height; y++) {
+      int walkable = _walkable.countWalkable(0, y, _width - 1, y);
+      if (walkable > bestWalkable) {
+        best = y;
+        bestWalkable = walkable;
+      }
+    }
+    return best;
+  }
+
+  /**
+  Take the obstacles off a row and mark its squares as the crossing. Returns the number of obstacles taken off.
+  **/
+  private int clearRow(int y) {
+    int cleared = 0;
+    for (int x = 0; x < _width; x++) {
+      cleared += clear(y * _width + x);
+    }
+    return cleared;
+  }
+
+  /**
+  Take the obstacle off a square of the crossing, if there is one, and mark the square. Returns 1 if there was an obstacle.
+  **/
+  private int clear(int square) {
+    _costs[square] = -1;
+    int x = square % _width;
+    int y = square / _width;
+    if (_walkable.isWalkable(x, y)) {
+      return 0;
+    }
+    _walkable.setWalkable(x, y, true);
+    return 1;
+  }
+
+  /**
+  Add a square at the front of the deque
+  **/
+  private void pushFront(int square) {
+    grow();
+    _head = (_head - 1) & (_deque.length - 1);
+    _deque[_head] = square;
+    _size++;
+  }
+
+  /**
+  Add a square at the back of the deque
+  **/
+  private void pushBack(int square) {
+    grow();
+    _deque[(_head + _size) & (_deque.length - 1)] = square;
+    _size++;
+  }
+
+  /**
+  Take the square at the front of the deque
+  **/
+  private int popFront() {
+    int square = _deque[_head];
+    _head = (_head + 1) & (_deque.length - 1);
+    _size--;
+    return square;
+  }
+
+  /**
+  Double the deque if it is full, keeping the order of the squares. Its length stays a power of two.
+  **/
+  private void grow() {
+    if (_size < _deque.length) {
+      return;
+    }
+    int[] deque = new int[2 * _deque.length];
+    for (int i = 0; i < _size; i++) {
+      deque[i] = _deque[(_head + i) & (_deque.length - 1)];
+    }
+    _deque = deque;
+    _head = 0;
+  }
+}
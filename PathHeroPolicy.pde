@@ -0,0 +1,30 @@
+/**
+Player that always clicks on the next square of a shortest path to the goal, ignoring the hunters
+**/
+public class PathHeroPolicy implements HeroPolicy {
+
+  private AStarSearch _aStar;
+  private int[] _path;
+
+  /**
+  Prepare the search for the world of the game
+  **/
+  public void start(Simulation simulation) {
+    _aStar = new AStarSearch(simulation.getWorld());
+    _path = new int[2];
+  }
+
+  /**
+  Click on the next square of the path
+  **/
+  public void steer(Simulation simulation) {
+    World world = simulation.getWorld();
+    int width = world.getGridSize().getX();
+    CoordinateInt hero = world.positionToGrid(simulation.getHero().getPosition());
+    CoordinateInt goal = simulation.getRules().getGoal();
+    int length = _aStar.search(hero.getY() * width + hero.getX(), goal.getY() * width + goal.getX(), _path);
+    if (length > 1) {
+      simulation.getHero().setDestination(new CoordinateInt(_path[1] % width, _path[1] / width));
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/**
+Benchmark the planning phase of a tick: all the hunters calculate their destination and search a path to it from scratch with A*, on as many threads as the runner was given.
+Nobody moves, so every operation plans the same.
+**/
+public class PlanHuntersBenchmark extends Benchmark {
+
+  private Simulation _simulation;
+
+  /**
+  Constructor
+  **/
+  public PlanHuntersBenchmark() {
+    super("Simulation.planHunters");
+  }
+
+  /**
+  Make all the hunters search from scratch, so there is work to share between the threads
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _simulation = simulation;
+    for (Hunter hunter : simulation.getHunters()) {
+      hunter.setSearchMode(SEARCH_ASTAR);
+    }
+    simulation.getWorld().preparePlanning();
+  }
+
+  /**
+  Let all the hunters plan
+  **/
+  public int operation() {
+    _simulation.planHunters();
+    return _simulation.getHunters().get(0).getDestination().getX();
+  }
+}
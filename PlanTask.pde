@@ -0,0 +1,24 @@
+import java.util.concurrent.Callable;
+
+/**
+Task for planning the next step of a hunter on another thread
+**/
+public class PlanTask implements Callable<Object> {
+
+  private Hunter _hunter;
+
+  /**
+  Constructor
+  **/
+  public PlanTask(Hunter hunter) {
+    _hunter = hunter;
+  }
+
+  /**
+  Plan. There is nothing to return, the step is kept by the hunter.
+  **/
+  public Object call() {
+    _hunter.plan();
+    return null;
+  }
+}
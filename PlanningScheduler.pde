@@ -0,0 +1,153 @@
+/**
+Searches the routes of the hunters with SEARCH_SCHEDULED within a budget of expanded nodes per tick, shared by all of them, so a tick never pays for
+more searching than the budget however many hunters need long searches at once. A search that runs out of budget is suspended and proceeds on the next tick,
+while the hunters keep following their last routes (see Hunter.plan()).
+The hunters closest to the hero are served first, since their routes matter most. A hunter gets a square closer for every tick it waits, so the far ones are served too.
+There is a single search at a time, so the scratch memory doesn't grow with the number of hunters. The budget counts nodes, not time, so a game plays the same on any host.
+**/
+public class PlanningScheduler implements WalkabilityListener {
+
+  private World _world;
+  private ArrayList<Hunter> _hunters;
+  private int _budget; // nodes expanded per tick
+  private AStarSearch _search; // only created when a hunter is scheduled
+  private int[] _path; // scratch space for the routes found
+  private int[] _waiting; // by hunter, ticks since it needs a route. -1 if it doesn't
+  private int _current; // hunter whose search is in progress. -1 if there is none
+  private int _currentGoal;
+  private int _expanded; // by the last run
+
+  /**
+  Constructor. Nothing is scheduled until the hunters of a game are assigned.
+  **/
+  public PlanningScheduler(World world) {
+    _world = world;
+    _hunters = new ArrayList<Hunter>();
+    _waiting = new int[0];
+    _current = -1;
+  }
+
+  /**
+  Take over the hunters of a new game. Only the ones with SEARCH_SCHEDULED are served.
+  **/
+  public void assign(ArrayList<Hunter> hunters, Settings settings) {
+    _hunters.clear();
+    _current = -1;
+    _budget = settings.getPlanningBudget();
+    if (settings.getHunterSearchMode() != SEARCH_SCHEDULED) {
+      return;
+    }
+    _hunters.addAll(hunters);
+    if (_waiting.length < hunters.size()) {
+      _waiting = new int[hunters.size()];
+    }
+    Arrays.fill(_waiting, -1);
+    if (_search == null) {
+      _search = new AStarSearch(_world);
+      CoordinateInt gridSize = _world.getGridSize();
+      _path = new int[2 * (gridSize.getX() + gridSize.getY())];
+    }
+  }
+
+  /**
+  Spend the budget of a tick on the searches the hunters asked for in their last plans. The routes found are handed to the hunters right away.
+  The simulation runs it before the hunters plan, on one thread.
+  **/
+  public void run() {
+    _expanded = 0;
+    if (_hunters.isEmpty()) {
+      return;
+    }
+    updateWaiting();
+    int budget = _budget;
+    while (budget > 0) {
+      if (_current == -1) {
+        _current = mostUrgent();
+        if (_current == -1) {
+          return;
+        }
+        Hunter hunter = _hunters.get(_current);
+        _currentGoal = hunter.getWantedGoal();
+        _search.start(_world.positionToNode(hunter.getPosition()), _currentGoal);
+      }
+      int expanded = _search.getExpandedNodes();
+      int length = _search.proceed(budget);
+      expanded = _search.getExpandedNodes() - expanded;
+      _expanded += expanded;
+      // the goal counts as one node, so the budget always shrinks
+      budget -= Math.max(1, expanded);
+      if (length == 0) {
+        // suspended until the next tick
+        return;
+      }
+      finish(length);
+    }
+  }
+
+  /**
+  Number of nodes expanded by the last run
+  **/
+  public int getExpandedNodes() {
+    return _expanded;
+  }
+
+  /**
+  Hand the result of the search in progress to its hunter
+  **/
+  private void finish(int length) {
+    if (length > _path.length) {
+      _path = new int[Math.max(length, 2 * _path.length)];
+    }
+    if (length > 0) {
+      _search.writePath(_path);
+    }
+    _hunters.get(_current).setRoute(_path, Math.max(length, 0), _currentGoal);
+    _waiting[_current] = -1;
+    _current = -1;
+  }
+
+  /**
+  Count the ticks the hunters have been waiting for a route. A hunter that doesn't need one anymore stops waiting.
+  **/
+  private void updateWaiting() {
+    for (int i = 0; i < _hunters.size(); i++) {
+      if (_hunters.get(i).getWantedGoal() == -1) {
+        _waiting[i] = -1;
+      }
+      else {
+        _waiting[i]++;
+      }
+    }
+  }
+
+  /**
+  Hunter waiting for a route that is closest to the hero, in squares less the ticks it waited. -1 if none is waiting.
+  **/
+  private int mostUrgent() {
+    CoordinateDouble hero = _world.getHero().getPosition();
+    double tileSize = _world.getTileSize().getX();
+    int best = -1;
+    double bestUrgency = Double.MAX_VALUE;
+    for (int i = 0; i < _hunters.size(); i++) {
+      if (_waiting[i] == -1) {
+        continue;
+      }
+      double urgency = Math.sqrt(_hunters.get(i).getPosition().squaredDistance(hero)) / tileSize - _waiting[i];
+      if (urgency < bestUrgency) {
+        best = i;
+        bestUrgency = urgency;
+      }
+    }
+    return best;
+  }
+
+  /**
+  A search in progress may lead through the new obstacles, so it is dropped. Its hunter asks again.
+  **/
+  public void walkabilityChanged(int x0, int y0, int x1, int y1) {
+    if (_current != -1) {
+      _waiting[_current] = -1;
+      _current = -1;
+    }
+  }
+}
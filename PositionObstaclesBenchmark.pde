@@ -0,0 +1,31 @@
+/**
+Benchmark placing the obstacles of a game
+**/
+public class PositionObstaclesBenchmark extends Benchmark {
+
+  private World _world;
+  private ArrayList<Obstacle> _obstacles;
+
+  /**
+  Constructor
+  **/
+  public PositionObstaclesBenchmark() {
+    super("World.positionObstacles");
+  }
+
+  /**
+  Keep the world and the obstacles of the game
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _world = simulation.getWorld();
+    _obstacles = simulation.getObstacles();
+  }
+
+  /**
+  Place all the obstacles again
+  **/
+  public int operation() {
+    _world.positionObstacles(_obstacles);
+    return _world.isWalkable(0, 0) ? 1 : 0;
+  }
+}
@@ -0,0 +1,220 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.IOException;
+
+/**
+Everything needed to play a game again: the seed of the world's random generator, the settings, and the squares the player clicked with the tick they were clicked at.
+Clicks are kept in the order they happened. A click at tick t is applied before the simulation runs its tick number t + 1.
+Recordings are written in a compact binary format: a header with the seed and the settings, then each click as variable length integers
+(ticks since the previous click, x and y), so a long game takes a few bytes per click. A game played on a prepared map carries a copy of the map
+after the settings, without its jumps, so it replays on the same squares wherever the map file went.
+**/
+public class Recording {
+
+  private final int _MAGIC = 0x48554E54; // "HUNT"
+  private final int _VERSION = 1;
+
+  private long _seed;
+  private Settings _settings;
+  private CoordinateInt _gridSize;
+  private MapFile _map; // null if the game was played on random obstacles
+  private int[] _ticks; // tick of each click
+  private int[] _cells; // clicked squares, x and y for each click
+  private int _clicks;
+  private int _endTick;
+  private int _endState;
+
+  /**
+  Constructor for a new recording. The settings are copied, so later changes don't affect the recording.
+  **/
+  public Recording(long seed, Settings settings, CoordinateInt gridSize) {
+    _seed = seed;
+    _settings = new Settings(settings);
+    _gridSize = gridSize;
+    _ticks = new int[16];
+    _cells = new int[32];
+    _clicks = 0;
+    _endTick = 0;
+    _endState = PLAYING;
+  }
+
+  /**
+  Constructor that reads a recording written by write()
+  **/
+  public Recording(InputStream input) throws IOException {
+    DataInputStream data = new DataInputStream(input);
+    if (data.readInt() != _MAGIC) {
+      throw new IOException("Not a recording");
+    }
+    int version = data.readUnsignedByte();
+    if (version != _VERSION) {
+      throw new IOException("Unsupported recording version " + version);
+    }
+    _seed = data.readLong();
+    _gridSize = new CoordinateInt(readVarInt(data), readVarInt(data));
+    _settings = new Settings(data);
+    if (data.readBoolean()) {
+      _map = new MapFile(data);
+    }
+    _endTick = readVarInt(data);
+    _endState = data.readUnsignedByte();
+    _clicks = readVarInt(data);
+    _ticks = new int[max(_clicks, 1)];
+    _cells = new int[2 * max(_clicks, 1)];
+    int tick = 0;
+    for (int i = 0; i < _clicks; i++) {
+      tick += readVarInt(data);
+      _ticks[i] = tick;
+      _cells[2 * i] = readVarInt(data);
+      _cells[2 * i + 1] = readVarInt(data);
+    }
+  }
+
+  /**
+  Write the recording to a stream. The stream is not closed.
+  **/
+  public void write(OutputStream output) throws IOException {
+    DataOutputStream data = new DataOutputStream(output);
+    data.writeInt(_MAGIC);
+    data.writeByte(_VERSION);
+    data.writeLong(_seed);
+    writeVarInt(data, _gridSize.getX());
+    writeVarInt(data, _gridSize.getY());
+    _settings.write(data);
+    data.writeBoolean(_map != null);
+    if (_map != null) {
+      _map.write(data, false);
+    }
+    writeVarInt(data, _endTick);
+    data.writeByte(_endState);
+    writeVarInt(data, _clicks);
+    int tick = 0;
+    for (int i = 0; i < _clicks; i++) {
+      writeVarInt(data, _ticks[i] - tick);
+      tick = _ticks[i];
+      writeVarInt(data, _cells[2 * i]);
+      writeVarInt(data, _cells[2 * i + 1]);
+    }
+    data.flush();
+  }
+
+  /**
+  Record a click on a square at a tick. Ticks must not decrease from one click to the next.
+  **/
+  public void addClick(int tick, CoordinateInt cell) {
+    if (_clicks == _ticks.length) {
+      _ticks = Arrays.copyOf(_ticks, 2 * _clicks);
+      _cells = Arrays.copyOf(_cells, 4 * _clicks);
+    }
+    _ticks[_clicks] = tick;
+    _cells[2 * _clicks] = cell.getX();
+    _cells[2 * _clicks + 1] = cell.getY();
+    _clicks++;
+  }
+
+  /**
+  Remember how far the game got, so a replay can check that it ends the same way
+  **/
+  public void setEnd(int tick, int state) {
+    _endTick = tick;
+    _endState = state;
+  }
+
+  /**
+  Seed getter
+  **/
+  public long getSeed() {
+    return _seed;
+  }
+
+  /**
+  Settings getter
+  **/
+  public Settings getSettings() {
+    return _settings;
+  }
+
+  /**
+  Grid size getter
+  **/
+  public CoordinateInt getGridSize() {
+    return _gridSize;
+  }
+
+  /**
+  Map getter. Null if the game was played on random obstacles.
+  **/
+  public MapFile getMap() {
+    return _map;
+  }
+
+  /**
+  Map setter, for a game played on a prepared map (see World.getMap())
+  **/
+  public void setMap(MapFile map) {
+    _map = map;
+  }
+
+  /**
+  Number of clicks getter
+  **/
+  public int getClickCount() {
+    return _clicks;
+  }
+
+  /**
+  Tick of a click
+  **/
+  public int getClickTick(int click) {
+    return _ticks[click];
+  }
+
+  /**
+  Square of a click
+  **/
+  public CoordinateInt getClickCell(int click) {
+    return new CoordinateInt(_cells[2 * click], _cells[2 * click + 1]);
+  }
+
+  /**
+  End tick getter. The last tick recorded, whether the game was over or not.
+  **/
+  public int getEndTick() {
+    return _endTick;
+  }
+
+  /**
+  End state getter. PLAYING if the game was not over when it was saved.
+  **/
+  public int getEndState() {
+    return _endState;
+  }
+
+  /**
+  Write a non negative integer in groups of 7 bits, lowest first, with the high bit set on all but the last byte
+  **/
+  private void writeVarInt(DataOutputStream data, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      data.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    data.writeByte(value);
+  }
+
+  /**
+  Read an integer written by writeVarInt()
+  **/
+  private int readVarInt(DataInputStream data) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = data.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed recording");
+  }
+}
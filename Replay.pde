@@ -0,0 +1,115 @@
+/**
+Plays a recorded game again without a window, as fast as the simulation can run. The game plays exactly as it was recorded,
+because the world is seeded the same way and the clicks reach the hero at the same ticks.
+It can seek to any tick: forward by running the ticks in between, backward by starting over from the first tick.
+**/
+public class Replay {
+
+  private Recording _recording;
+  private World _world;
+  private Simulation _simulation;
+  private int _nextClick; // first click not applied yet
+  private long _slowestNanos;
+  private int _slowestTick;
+
+  /**
+  Constructor. The replay starts at tick 0.
+  **/
+  public Replay(Recording recording) {
+    _recording = recording;
+    CoordinateInt gridSize = recording.getGridSize();
+    if (recording.getMap() != null) {
+      _world = new World(WORLD_SIZE_X, WORLD_SIZE_Y, recording.getMap(), null);
+    }
+    else {
+      _world = new World(WORLD_SIZE_X, WORLD_SIZE_Y, gridSize.getX(), gridSize.getY(), null);
+    }
+    _simulation = new Simulation(_world, recording.getSettings());
+    restart();
+  }
+
+  /**
+  Start the game again from its first tick
+  **/
+  public void restart() {
+    _world.getRandom().setSeed(_recording.getSeed());
+    _simulation.newGame(null);
+    _nextClick = 0;
+    _slowestNanos = 0;
+    _slowestTick = -1;
+  }
+
+  /**
+  Run one tick, after giving the hero the clicks of the current tick. Returns the state after the tick.
+  **/
+  public int step() {
+    int tick = _simulation.getTick();
+    while (_nextClick < _recording.getClickCount() && _recording.getClickTick(_nextClick) <= tick) {
+      _simulation.getHero().setDestination(_recording.getClickCell(_nextClick));
+      _nextClick++;
+    }
+    long start = System.nanoTime();
+    int state = _simulation.step();
+    long nanos = System.nanoTime() - start;
+    if (nanos > _slowestNanos) {
+      _slowestNanos = nanos;
+      _slowestTick = tick;
+    }
+    return state;
+  }
+
+  /**
+  Go to a tick, i.e. the state after that many ticks have been run. Stops early if the game ends before. Returns the state there.
+  **/
+  public int seek(int tick) {
+    if (tick < _simulation.getTick()) {
+      restart();
+    }
+    while (_simulation.getTick() < tick && _simulation.getState() == PLAYING) {
+      step();
+    }
+    return _simulation.getState();
+  }
+
+  /**
+  Run up to the last recorded tick. Returns the state there.
+  **/
+  public int run() {
+    return seek(_recording.getEndTick());
+  }
+
+  /**
+  Whether the replay reached the same tick and state as the recorded game
+  **/
+  public boolean matchesRecording() {
+    return _simulation.getTick() == _recording.getEndTick() && _simulation.getState() == _recording.getEndState();
+  }
+
+  /**
+  Simulation getter. Its tick is the current tick of the replay.
+  **/
+  public Simulation getSimulation() {
+    return _simulation;
+  }
+
+  /**
+  Recording getter
+  **/
+  public Recording getRecording() {
+    return _recording;
+  }
+
+  /**
+  Tick that took the longest to run since the last restart. -1 if none has run.
+  **/
+  public int getSlowestTick() {
+    return _slowestTick;
+  }
+
+  /**
+  Duration of the slowest tick in nanoseconds
+  **/
+  public long getSlowestNanos() {
+    return _slowestNanos;
+  }
+}
@@ -0,0 +1,102 @@
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.IOException;
+
+/**
+Replays a recorded game without a window at full speed and prints where the agents are, to look into slow ticks and bad hunter decisions.
+It is started by running the sketch with the --replay argument and the file of a recording saved with the r key, e.g.
+--replay file=recordings/game-1234.rec tick=500
+Without a tick, the whole game is replayed and checked against the recorded end.
+**/
+public class ReplayRunner {
+
+  private String _file;
+  private int _tick; // -1 to replay the whole game
+
+  /**
+  Constructor. Takes the command line arguments of the sketch.
+  **/
+  public ReplayRunner(String[] args) {
+    _file = null;
+    _tick = -1;
+    for (String arg : args) {
+      String[] pair = split(arg, '=');
+      if (pair.length != 2) {
+        continue;
+      }
+      if (pair[0].equals("file")) {
+        _file = pair[1];
+      }
+      else if (pair[0].equals("tick")) {
+        _tick = Integer.parseInt(pair[1]);
+      }
+    }
+    if (_file == null) {
+      throw new IllegalArgumentException("No recording given, use file=<path>");
+    }
+  }
+
+  /**
+  Load the recording, replay it and print the result
+  **/
+  public void run() {
+    Recording recording;
+    try {
+      InputStream input = new FileInputStream(sketchPath(_file));
+      try {
+        recording = new Recording(input);
+      }
+      finally {
+        input.close();
+      }
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Could not read the recording " + _file, e);
+    }
+    println("Replaying " + _file + ": seed " + recording.getSeed() + ", " + recording.getClickCount() + " clicks, "
+      + recording.getEndTick() + " ticks recorded");
+
+    long start = System.nanoTime();
+    Replay replay = new Replay(recording);
+    int state = _tick >= 0 ? replay.seek(_tick) : replay.run();
+    double seconds = (System.nanoTime() - start) / 1e9;
+    Simulation simulation = replay.getSimulation();
+
+    println("tick " + simulation.getTick() + ", " + stateName(state));
+    printAgent("Hero", simulation.getHero());
+    for (Hunter hunter : simulation.getHunters()) {
+      printAgent(hunter.getClass().getSimpleName(), hunter);
+    }
+    if (replay.getSlowestTick() >= 0) {
+      println(String.format("slowest tick %d took %.3f ms", replay.getSlowestTick(), replay.getSlowestNanos() / 1e6));
+    }
+    println(String.format("%.3f s, %.0f ticks/s", seconds, simulation.getTick() / seconds));
+    if (_tick < 0 && !replay.matchesRecording()) {
+      println("The replay did not end like the recorded game (" + stateName(recording.getEndState()) + " at tick " + recording.getEndTick() + ")");
+    }
+    simulation.shutdown();
+  }
+
+  /**
+  Print the position of an agent and the square it is heading for
+  **/
+  private void printAgent(String name, Agent agent) {
+    CoordinateDouble position = agent.getPosition();
+    CoordinateInt destination = agent.getDestination();
+    String heading = destination != null ? destination.getX() + ", " + destination.getY() : "nowhere";
+    println(String.format("%-12s at %.1f, %.1f going to %s", name, position.getX(), position.getY(), heading));
+  }
+
+  /**
+  Readable name of a game state
+  **/
+  private String stateName(int state) {
+    if (state == WON) {
+      return "won";
+    }
+    if (state == LOST) {
+      return "lost";
+    }
+    return "playing";
+  }
+}
@@ -11,6 +11,9 @@ public class Rules implements Drawable {
   private CoordinateInt _goal;
   private int _alpha;
   private int _alphaStep;
+  private CoordinateInt _heroSquare; // scratch space for checking the winning condition
+  private CoordinateInt _screenPosition; // scratch space for drawing
+  private CoordinateInt _screenSize; // scratch space for drawing
   
   /**
   Constructor
@@ -19,6 +22,9 @@ public class Rules implements Drawable {
     _world = world;
     _alpha = _GOAL_ALPHA_HIGH;
     _alphaStep = -1;
+    _heroSquare = new CoordinateInt(0, 0);
+    _screenPosition = new CoordinateInt(0, 0);
+    _screenSize = new CoordinateInt(0, 0);
     generateGoal();
   }
   
@@ -26,9 +32,15 @@ public class Rules implements Drawable {
   Place the goal
   **/
   private void generateGoal() {
+    // a prepared map has its own goal
+    MapFile map = _world.getMap();
+    if (map != null) {
+      _goal = new CoordinateInt(map.getGoal().getX(), map.getGoal().getY());
+      return;
+    }
     // goal is a random location on the last column
     int x = _world.getGridSize().getX() - 1;
-    int y = (int) random(_world.getGridSize().getY());
+    int y = _world.getRandom().nextInt(_world.getGridSize().getY());
     _goal = new CoordinateInt(x, y);
   }
   
@@ -36,8 +48,13 @@ public class Rules implements Drawable {
   Place the Hero
   **/
   public CoordinateInt generateHeroStart() {
+    // a prepared map has its own hero start
+    MapFile map = _world.getMap();
+    if (map != null) {
+      return new CoordinateInt(map.getHeroStart().getX(), map.getHeroStart().getY());
+    }
      // hero start is a random location on the first column
-    int y = (int) random(_world.getGridSize().getY());
+    int y = _world.getRandom().nextInt(_world.getGridSize().getY());
     return new CoordinateInt(0, y);
   }
   
@@ -49,8 +66,8 @@ public class Rules implements Drawable {
     CoordinateInt start;
     // loop to make sure the hunter's position is walkable
     do { 
-      int x = (int) (_world.getGridSize().getX() / 2) + (int) random(_world.getGridSize().getX() / 4 + 1) - (int) (_world.getGridSize().getX() / 8);
-      int y = (int) random(_world.getGridSize().getY() / 8 + 1);
+      int x = (int) (_world.getGridSize().getX() / 2) + _world.getRandom().nextInt(_world.getGridSize().getX() / 4 + 1) - (int) (_world.getGridSize().getX() / 8);
+      int y = _world.getRandom().nextInt(_world.getGridSize().getY() / 8 + 1);
       // see if the hero is in the top half and put hunters in botton half in that case
       if (_world.positionToGrid(hero.getPosition()).getY() < _world.getGridSize().getY() / 2) {
         y = _world.getGridSize().getY() - 1 - y;
@@ -61,22 +78,6 @@ public class Rules implements Drawable {
     return start;
   }
   
-  /**
-  Place an obstacle
-  **/
-  public CoordinateInt generateObstaclePosition() {
-     // obstacles are placed on random positions except the first and last column
-     CoordinateInt position;
-     // loop to prevent assigning two obstacles to the same grid position
-     do {
-       int x = (int) random(_world.getGridSize().getX() - 2) + 1;
-       int y = (int) random(_world.getGridSize().getY());
-       position = new CoordinateInt(x, y); 
-     } while (!_world.isWalkable(position));
-     
-     return position;
-  }
-  
   /**
   Draw the goal. It is a flashing green square
   **/
@@ -92,10 +93,11 @@ public class Rules implements Drawable {
     
     // draw the goal tile
     imageMode(CORNER);
-    CoordinateInt position = view.convert(_goal);
+    CoordinateInt position = view.convert(_goal, _screenPosition);
     noStroke();
     fill(_GOAL_COLOR, _alpha);
-    rect(position.getX(), position.getY(), view.convert(_world.getTileSize()).getX(), view.convert(_world.getTileSize()).getY());
+    CoordinateInt size = view.convert(_world.getTileSize(), _screenSize);
+    rect(position.getX(), position.getY(), size.getX(), size.getY());
   }
   
   /**
@@ -103,19 +105,20 @@ public class Rules implements Drawable {
   Position is checked against the grid.
   **/
   public boolean checkWon() {
-    return _world.positionToGrid(_world.getHero().getPosition()).equals(_goal);
+    return _world.positionToGrid(_world.getHero().getPosition(), _heroSquare).equals(_goal);
   }
   
   /**
   Check losing condition, i.e. a hunter has caught the hero.
-  Position is checked against the grid.
+  Position is checked against the grid. Only the agents on the square of the hero are looked at, so it doesn't depend on the number of hunters.
   **/
   public boolean checkLost() {
-    CoordinateInt heroPosition = _world.positionToGrid(_world.getHero().getPosition());
-    for (Hunter hunter : _world.getHunters()) {
-      if (_world.positionToGrid(hunter.getPosition()).equals(heroPosition)) {
+    AgentIndex agents = _world.getAgentIndex();
+    int heroSquare = agents.getSquare(_world.getHero());
+    for (int slot = agents.first(heroSquare); slot != -1; slot = agents.next(slot)) {
+      if (agents.getAgent(slot) instanceof Hunter) {
         return true;
-      } 
+      }
     }
     return false;
   }
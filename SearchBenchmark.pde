@@ -0,0 +1,38 @@
+/**
+Benchmark a single A* search between random walkable squares, including the ones that have no path between them
+**/
+public class SearchBenchmark extends Benchmark {
+
+  private final int _PAIRS = 64;
+
+  private AStarSearch _aStar;
+  private int[] _nodes;
+  private int[] _path;
+  private int _next;
+
+  /**
+  Constructor
+  **/
+  public SearchBenchmark() {
+    super("AStarSearch.search");
+  }
+
+  /**
+  Pick the start and goal squares
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _aStar = new AStarSearch(simulation.getWorld());
+    _nodes = randomWalkableNodes(simulation.getWorld(), 2 * _PAIRS);
+    _path = new int[2];
+    _next = 0;
+  }
+
+  /**
+  Search the next pair
+  **/
+  public int operation() {
+    int length = _aStar.search(_nodes[_next], _nodes[_next + 1], _path);
+    _next = (_next + 2) % _nodes.length;
+    return length;
+  }
+}
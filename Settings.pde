@@ -0,0 +1,282 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+Tunable parameters of a game. They default to the constants of the sketch, but can be changed for each simulation, e.g. to try different speeds in batch runs.
+Every setting is copied by the copy constructor and written by write() (see Recording), so a recorded game replays with all of them. A new setting goes into both, and into the constructor reading them.
+**/
+public class Settings {
+
+  private int _numObstacles;
+  private double _heroSpeed;
+  private double _followerSpeed;
+  private double _interceptorSpeed;
+  private double _routeCutterSpeed;
+  private int _hunterSearchMode;
+  private int _planningThreads;
+  private int _followers;
+  private int _interceptors;
+  private int _routeCutters;
+  private int _flowFieldBudget;
+  private int _planningBudget;
+  private boolean _followPaths;
+
+  /**
+  Constructor. Uses the default values of the sketch.
+  **/
+  public Settings() {
+    _numObstacles = NUM_OBSTACLES;
+    _heroSpeed = HERO_SPEED;
+    _followerSpeed = FOLLOWER_SPEED;
+    _interceptorSpeed = INTERCEPTOR_SPEED;
+    _routeCutterSpeed = ROUTE_CUTTER_SPEED;
+    _hunterSearchMode = SEARCH_INCREMENTAL;
+    _planningThreads = 1;
+    _followers = NUM_FOLLOWERS;
+    _interceptors = NUM_INTERCEPTORS;
+    _routeCutters = NUM_ROUTE_CUTTERS;
+    _flowFieldBudget = FLOW_FIELD_BUDGET;
+    _planningBudget = PLANNING_BUDGET;
+    _followPaths = FOLLOW_PATHS;
+  }
+
+  /**
+  Copy constructor
+  **/
+  public Settings(Settings settings) {
+    _numObstacles = settings._numObstacles;
+    _heroSpeed = settings._heroSpeed;
+    _followerSpeed = settings._followerSpeed;
+    _interceptorSpeed = settings._interceptorSpeed;
+    _routeCutterSpeed = settings._routeCutterSpeed;
+    _hunterSearchMode = settings._hunterSearchMode;
+    _planningThreads = settings._planningThreads;
+    _followers = settings._followers;
+    _interceptors = settings._interceptors;
+    _routeCutters = settings._routeCutters;
+    _flowFieldBudget = settings._flowFieldBudget;
+    _planningBudget = settings._planningBudget;
+    _followPaths = settings._followPaths;
+  }
+
+  /**
+  Constructor that reads settings written by write()
+  **/
+  public Settings(DataInputStream data) throws IOException {
+    _numObstacles = data.readInt();
+    _heroSpeed = data.readDouble();
+    _followerSpeed = data.readDouble();
+    _interceptorSpeed = data.readDouble();
+    _routeCutterSpeed = data.readDouble();
+    _hunterSearchMode = data.readInt();
+    _planningThreads = data.readInt();
+    _followers = data.readInt();
+    _interceptors = data.readInt();
+    _routeCutters = data.readInt();
+    _flowFieldBudget = data.readInt();
+    _planningBudget = data.readInt();
+    _followPaths = data.readBoolean();
+  }
+
+  /**
+  Write all the settings to a stream, in the order of the fields
+  **/
+  public void write(DataOutputStream data) throws IOException {
+    data.writeInt(_numObstacles);
+    data.writeDouble(_heroSpeed);
+    data.writeDouble(_followerSpeed);
+    data.writeDouble(_interceptorSpeed);
+    data.writeDouble(_routeCutterSpeed);
+    data.writeInt(_hunterSearchMode);
+    data.writeInt(_planningThreads);
+    data.writeInt(_followers);
+    data.writeInt(_interceptors);
+    data.writeInt(_routeCutters);
+    data.writeInt(_flowFieldBudget);
+    data.writeInt(_planningBudget);
+    data.writeBoolean(_followPaths);
+  }
+
+  /**
+  Number of obstacles getter
+  **/
+  public int getNumObstacles() {
+    return _numObstacles;
+  }
+
+  /**
+  Number of obstacles setter
+  **/
+  public void setNumObstacles(int numObstacles) {
+    _numObstacles = numObstacles;
+  }
+
+  /**
+  Hero speed getter
+  **/
+  public double getHeroSpeed() {
+    return _heroSpeed;
+  }
+
+  /**
+  Hero speed setter
+  **/
+  public void setHeroSpeed(double heroSpeed) {
+    _heroSpeed = heroSpeed;
+  }
+
+  /**
+  Follower speed getter
+  **/
+  public double getFollowerSpeed() {
+    return _followerSpeed;
+  }
+
+  /**
+  Follower speed setter
+  **/
+  public void setFollowerSpeed(double followerSpeed) {
+    _followerSpeed = followerSpeed;
+  }
+
+  /**
+  Interceptor speed getter
+  **/
+  public double getInterceptorSpeed() {
+    return _interceptorSpeed;
+  }
+
+  /**
+  Interceptor speed setter
+  **/
+  public void setInterceptorSpeed(double interceptorSpeed) {
+    _interceptorSpeed = interceptorSpeed;
+  }
+
+  /**
+  Route cutter speed getter
+  **/
+  public double getRouteCutterSpeed() {
+    return _routeCutterSpeed;
+  }
+
+  /**
+  Route cutter speed setter
+  **/
+  public void setRouteCutterSpeed(double routeCutterSpeed) {
+    _routeCutterSpeed = routeCutterSpeed;
+  }
+
+  /**
+  Hunter search mode getter. One of the SEARCH_ constants.
+  **/
+  public int getHunterSearchMode() {
+    return _hunterSearchMode;
+  }
+
+  /**
+  Hunter search mode setter. Every hunter of a new game starts with it.
+  **/
+  public void setHunterSearchMode(int hunterSearchMode) {
+    _hunterSearchMode = hunterSearchMode;
+  }
+
+  /**
+  Planning threads getter
+  **/
+  public int getPlanningThreads() {
+    return _planningThreads;
+  }
+
+  /**
+  Planning threads setter. With more than one, the hunters plan their steps in parallel. The game plays the same either way.
+  **/
+  public void setPlanningThreads(int planningThreads) {
+    _planningThreads = planningThreads;
+  }
+
+  /**
+  Number of followers getter
+  **/
+  public int getFollowers() {
+    return _followers;
+  }
+
+  /**
+  Number of followers setter
+  **/
+  public void setFollowers(int followers) {
+    _followers = followers;
+  }
+
+  /**
+  Number of interceptors getter
+  **/
+  public int getInterceptors() {
+    return _interceptors;
+  }
+
+  /**
+  Number of interceptors setter
+  **/
+  public void setInterceptors(int interceptors) {
+    _interceptors = interceptors;
+  }
+
+  /**
+  Number of route cutters getter
+  **/
+  public int getRouteCutters() {
+    return _routeCutters;
+  }
+
+  /**
+  Number of route cutters setter
+  **/
+  public void setRouteCutters(int routeCutters) {
+    _routeCutters = routeCutters;
+  }
+
+  /**
+  Flow field budget getter
+  **/
+  public int getFlowFieldBudget() {
+    return _flowFieldBudget;
+  }
+
+  /**
+  Flow field budget setter. Nodes settled per tick for each flow field of the swarm. Lower keeps the ticks shorter, higher keeps the fields closer to their targets.
+  **/
+  public void setFlowFieldBudget(int flowFieldBudget) {
+    _flowFieldBudget = flowFieldBudget;
+  }
+
+  /**
+  Planning budget getter
+  **/
+  public int getPlanningBudget() {
+    return _planningBudget;
+  }
+
+  /**
+  Planning budget setter. Nodes expanded per tick by the scheduled searches of all the hunters together (SEARCH_SCHEDULED). Lower caps the ticks lower, higher gets new paths sooner.
+  **/
+  public void setPlanningBudget(int planningBudget) {
+    _planningBudget = planningBudget;
+  }
+
+  /**
+  Follow paths getter
+  **/
+  public boolean getFollowPaths() {
+    return _followPaths;
+  }
+
+  /**
+  Follow paths setter. Whether the hunters searching from scratch follow their paths instead of searching every tick (see Hunter.setFollowPaths()).
+  **/
+  public void setFollowPaths(boolean followPaths) {
+    _followPaths = followPaths;
+  }
+}
@@ -0,0 +1,319 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+The game engine. It owns the objects of a game and advances them one tick at a time, without depending on a window or on images.
+Drawing is left to whoever observes the simulation, e.g. the sketch's draw() loop, so many simulations can be stepped headless.
+**/
+public class Simulation {
+
+  private World _world;
+  private Settings _settings;
+  private Rules _rules;
+  private ArrayList<Obstacle> _obstacles;
+  private Hero _hero;
+  private CoordinateInt _heroStart; // square the hero started the game on
+  private ArrayList<Hunter> _hunters;
+  private Swarm _swarm;
+  private PlanningScheduler _scheduler;
+  private FrameProfiler _profiler; // null unless the ticks are measured
+  private int _state;
+  private int _tick;
+  private ExecutorService _executor; // only used with more than one planning thread
+  private ArrayList<PlanTask> _planTasks;
+
+  /**
+  Constructor. Call newGame() before stepping the simulation.
+  **/
+  public Simulation(World world, Settings settings) {
+    _world = world;
+    _settings = settings;
+    _state = PLAYING;
+    _swarm = new Swarm(world);
+    _world.registerSwarm(_swarm);
+    _scheduler = new PlanningScheduler(world);
+    _world.addWalkabilityListener(_scheduler);
+  }
+
+  /**
+  Init the objects for a new game. Sprites may be null to run headless.
+  **/
+  public void newGame(Sprites sprites) {
+    PImage[] obstacleSprites = sprites != null ? sprites.getObstacle() : null;
+
+    // create the rules and tell the world about them
+    _rules = new Rules(_world);
+    _world.registerRules(_rules);
+
+    // create and position obstacles. the position is assigned by the world, so set it to null for the time being
+    _obstacles = new ArrayList<Obstacle>();
+    if (_world.getMap() != null) {
+      // a prepared map has its own obstacles. they only need objects to be drawn
+      _world.restoreMap();
+      if (obstacleSprites != null) {
+        addMapObstacles(obstacleSprites);
+      }
+    }
+    else {
+      for (int i = 0; i < _settings.getNumObstacles(); i++) {
+        _obstacles.add(new Obstacle(null, obstacleSprites, _world));
+      }
+      _world.positionObstacles(_obstacles);
+    }
+
+    // create the hero and tell the world about it
+    _heroStart = _rules.generateHeroStart();
+    _hero = new Hero(new CoordinateInt(_heroStart.getX(), _heroStart.getY()), _settings.getHeroSpeed(), sprites != null ? sprites.getHero() : null, _world);
+    _world.registerHero(_hero);
+
+    // create the hunters and tell the world about them
+    _hunters = new ArrayList<Hunter>();
+    // followers
+    for (int i = 0; i < _settings.getFollowers(); i++) {
+      _hunters.add(new Follower(_rules.generateHunterStart(_hero), _settings.getFollowerSpeed(), sprites != null ? sprites.getFollower() : null, _world));
+    }
+    // interceptors
+    for (int i = 0; i < _settings.getInterceptors(); i++) {
+      _hunters.add(new Interceptor(_rules.generateHunterStart(_hero), _settings.getInterceptorSpeed(), sprites != null ? sprites.getInterceptor() : null, _world));
+    }
+    // route cutters
+    for (int i = 0; i < _settings.getRouteCutters(); i++) {
+      _hunters.add(new RouteCutter(_rules.generateHunterStart(_hero), _settings.getRouteCutterSpeed(), sprites != null ? sprites.getRouteCutter() : null, _world));
+    }
+    for (Hunter hunter : _hunters) {
+      hunter.setSearchMode(_settings.getHunterSearchMode());
+      hunter.setFollowPaths(_settings.getFollowPaths());
+      hunter.setProfiled(_profiler != null);
+    }
+    // tell world, and the swarm which hunters play which role
+    _world.registerHunters(_hunters);
+    _swarm.assign(_hunters, _settings);
+    _scheduler.assign(_hunters, _settings);
+    _planTasks = new ArrayList<PlanTask>();
+    for (Hunter hunter : _hunters) {
+      _planTasks.add(new PlanTask(hunter));
+    }
+
+    _state = PLAYING;
+    _tick = 0;
+  }
+
+  /**
+  Create an obstacle to draw on every square of the map that can't be visited
+  **/
+  private void addMapObstacles(PImage[] obstacleSprites) {
+    CoordinateInt gridSize = _world.getGridSize();
+    for (int y = 0; y < gridSize.getY(); y++) {
+      for (int x = 0; x < gridSize.getX(); x++) {
+        if (!_world.isWalkable(x, y)) {
+          _obstacles.add(new Obstacle(new CoordinateInt(x, y), obstacleSprites, _world));
+        }
+      }
+    }
+  }
+
+  /**
+  Advance the game by one tick. Returns the state after the tick, i.e. PLAYING, WON or LOST.
+  Once the game is over, further calls do nothing.
+  **/
+  public int step() {
+    if (_state != PLAYING) {
+      return _state;
+    }
+    if (_profiler != null) {
+      _profiler.beginTick();
+    }
+
+    // where the agents were before the tick, to draw them in between
+    _hero.rememberPosition();
+    for (int i = 0; i < _hunters.size(); i++) {
+      _hunters.get(i).rememberPosition();
+    }
+
+    long time = System.nanoTime();
+    _hero.doSomething();
+    time = lap(PROFILE_HERO, time);
+    // we're nice and check for winning conditions first
+    if (_rules.checkWon()) {
+      _state = WON;
+      lap(PROFILE_RULES, time);
+    }
+    else {
+      time = lap(PROFILE_RULES, time);
+      // only move the enemies if the player has not won. all of them plan against the positions before any of them moves, so the order of planning doesn't matter
+      _world.preparePlanning();
+      // the scheduled searches hand their routes to the hunters before they plan
+      _scheduler.run();
+      lap(PROFILE_PREPARE, time);
+      planHunters();
+      profilePlanning();
+      time = System.nanoTime();
+      for (int i = 0; i < _hunters.size(); i++) {
+        _hunters.get(i).apply();
+      }
+      time = lap(PROFILE_MOVES, time);
+      // check if a hunter caught the player
+      if (_rules.checkLost()) {
+        _state = LOST;
+      }
+      lap(PROFILE_RULES, time);
+    }
+
+    _tick++;
+    if (_profiler != null) {
+      _profiler.endTick();
+    }
+    return _state;
+  }
+
+  /**
+  Add the time since start to a column of the profiler, if there is one. Returns the current time.
+  **/
+  private long lap(int column, long start) {
+    return _profiler != null ? _profiler.lap(column, start) : start;
+  }
+
+  /**
+  Add up what the hunters measured while they planned, if there is a profiler. The hunters measure themselves, since they may plan at the same time.
+  **/
+  private void profilePlanning() {
+    if (_profiler == null) {
+      return;
+    }
+    _profiler.add(PROFILE_EXPANDED, _scheduler.getExpandedNodes());
+    for (int i = 0; i < _hunters.size(); i++) {
+      Hunter hunter = _hunters.get(i);
+      _profiler.add(PROFILE_DESTINATIONS, hunter.getDestinationNanos());
+      _profiler.add(PROFILE_SEARCH, hunter.getSearchNanos());
+      _profiler.max(PROFILE_SLOWEST_SEARCH, hunter.getSearchNanos());
+      _profiler.add(PROFILE_EXPANDED, hunter.getExpandedNodes());
+    }
+  }
+
+  /**
+  Profiler setter. The ticks are measured from the next game on. Null stops measuring.
+  **/
+  public void setProfiler(FrameProfiler profiler) {
+    _profiler = profiler;
+  }
+
+  /**
+  Let all the hunters plan their next step, in parallel if there are several planning threads. The world has to be prepared for planning.
+  **/
+  public void planHunters() {
+    if (_settings.getPlanningThreads() <= 1 || _hunters.size() <= 1) {
+      for (int i = 0; i < _hunters.size(); i++) {
+        _hunters.get(i).plan();
+      }
+      return;
+    }
+    if (_executor == null) {
+      _executor = Executors.newFixedThreadPool(_settings.getPlanningThreads(), new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+          // don't keep the sketch alive when it exits
+          Thread thread = new Thread(runnable, "hunter planning");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    try {
+      for (Future<Object> future : _executor.invokeAll(_planTasks)) {
+        future.get();
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+  Stop the planning threads. The simulation can still be stepped afterwards, it starts new ones if needed.
+  **/
+  public void shutdown() {
+    if (_executor != null) {
+      _executor.shutdown();
+      _executor = null;
+    }
+  }
+
+  /**
+  Step the game until it is over or the maximum number of ticks has been run. Returns the final state.
+  **/
+  public int run(int maxTicks) {
+    while (_state == PLAYING && _tick < maxTicks) {
+      step();
+    }
+    return _state;
+  }
+
+  /**
+  World getter
+  **/
+  public World getWorld() {
+    return _world;
+  }
+
+  /**
+  Settings getter
+  **/
+  public Settings getSettings() {
+    return _settings;
+  }
+
+  /**
+  Rules getter
+  **/
+  public Rules getRules() {
+    return _rules;
+  }
+
+  /**
+  Obstacles getter
+  **/
+  public ArrayList<Obstacle> getObstacles() {
+    return _obstacles;
+  }
+
+  /**
+  Hero getter
+  **/
+  public Hero getHero() {
+    return _hero;
+  }
+
+  /**
+  Hero start getter. The square the hero started the game on.
+  **/
+  public CoordinateInt getHeroStart() {
+    return _heroStart;
+  }
+
+  /**
+  Hunters getter
+  **/
+  public ArrayList<Hunter> getHunters() {
+    return _hunters;
+  }
+
+  /**
+  State getter. PLAYING while the game is running, WON or LOST afterwards.
+  **/
+  public int getState() {
+    return _state;
+  }
+
+  /**
+  Number of ticks run in the current game
+  **/
+  public int getTick() {
+    return _tick;
+  }
+}
@@ -0,0 +1,153 @@
+/**
+Collects the sprites of a frame and draws them grouped by image, instead of changing the drawing state for every sprite.
+With an OpenGL renderer (P2D or P3D), the sprites of an image become one shape of textured quads, rotated in the vertex data, so each image is sent to the graphics card once per frame.
+With the default renderer, which can't texture shapes, the sprites are drawn one by one, but still without changing the image mode and the matrix for each of them.
+The images are drawn in the order they were first added, so later images end up on top.
+**/
+public class SpriteBatch {
+
+  private PImage[] _images;
+  private float[][] _sprites; // x, y and angle of each sprite by image
+  private int[] _counts; // number of sprites by image
+  private int _imageCount;
+  private int _lastImage; // index of the image added last. sprites usually come in runs of the same image
+
+  /**
+  Constructor
+  **/
+  public SpriteBatch() {
+    _images = new PImage[8];
+    _sprites = new float[8][];
+    _counts = new int[8];
+    _imageCount = 0;
+    _lastImage = -1;
+  }
+
+  /**
+  Add a sprite centered at x, y on the screen and rotated clockwise by angle (in radians). It is drawn on the next flush.
+  **/
+  public void add(PImage image, float x, float y, float angle) {
+    int index = indexOf(image);
+    int count = _counts[index];
+    float[] sprites = _sprites[index];
+    if (3 * count == sprites.length) {
+      sprites = Arrays.copyOf(sprites, 2 * sprites.length);
+      _sprites[index] = sprites;
+    }
+    sprites[3 * count] = x;
+    sprites[3 * count + 1] = y;
+    sprites[3 * count + 2] = angle;
+    _counts[index] = count + 1;
+  }
+
+  /**
+  Draw all the sprites added since the last flush and empty the batch. The images drawn are kept for the next frame, the others are forgotten.
+  **/
+  public void flush() {
+    if (g.isGL()) {
+      drawQuads();
+    }
+    else {
+      drawImages();
+    }
+
+    // keep the images of this frame in their order, e.g. a new game loads new ones
+    int kept = 0;
+    for (int i = 0; i < _imageCount; i++) {
+      if (_counts[i] == 0) {
+        continue;
+      }
+      _images[kept] = _images[i];
+      _sprites[kept] = _sprites[i];
+      _counts[kept] = 0;
+      kept++;
+    }
+    Arrays.fill(_images, kept, _imageCount, null);
+    Arrays.fill(_sprites, kept, _imageCount, null);
+    Arrays.fill(_counts, kept, _imageCount, 0);
+    _imageCount = kept;
+    _lastImage = -1;
+  }
+
+  /**
+  Draw the sprites of each image as one shape of textured quads
+  **/
+  private void drawQuads() {
+    noStroke();
+    textureMode(NORMAL);
+    for (int i = 0; i < _imageCount; i++) {
+      if (_counts[i] == 0) {
+        continue;
+      }
+      PImage image = _images[i];
+      float[] sprites = _sprites[i];
+      float halfWidth = image.width / 2f;
+      float halfHeight = image.height / 2f;
+      beginShape(QUADS);
+      texture(image);
+      for (int j = 0; j < 3 * _counts[i]; j += 3) {
+        float x = sprites[j];
+        float y = sprites[j + 1];
+        float angle = sprites[j + 2];
+        // corners of the sprite rotated around its center
+        float cos = angle == 0 ? 1 : cos(angle);
+        float sin = angle == 0 ? 0 : sin(angle);
+        float wx = halfWidth * cos;
+        float wy = halfWidth * sin;
+        float hx = -halfHeight * sin;
+        float hy = halfHeight * cos;
+        vertex(x - wx - hx, y - wy - hy, 0, 0);
+        vertex(x + wx - hx, y + wy - hy, 1, 0);
+        vertex(x + wx + hx, y + wy + hy, 1, 1);
+        vertex(x - wx + hx, y - wy + hy, 0, 1);
+      }
+      endShape();
+    }
+  }
+
+  /**
+  Draw the sprites one by one with image(). Only the rotated ones need to change the matrix.
+  **/
+  private void drawImages() {
+    imageMode(CENTER);
+    for (int i = 0; i < _imageCount; i++) {
+      PImage image = _images[i];
+      float[] sprites = _sprites[i];
+      for (int j = 0; j < 3 * _counts[i]; j += 3) {
+        if (sprites[j + 2] == 0) {
+          image(image, sprites[j], sprites[j + 1]);
+          continue;
+        }
+        pushMatrix();
+        translate(sprites[j], sprites[j + 1]);
+        rotate(sprites[j + 2]);
+        image(image, 0, 0);
+        popMatrix();
+      }
+    }
+  }
+
+  /**
+  Index of an image in the batch. Images not seen before are added at the end.
+  **/
+  private int indexOf(PImage image) {
+    if (_lastImage != -1 && _images[_lastImage] == image) {
+      return _lastImage;
+    }
+    for (int i = 0; i < _imageCount; i++) {
+      if (_images[i] == image) {
+        _lastImage = i;
+        return i;
+      }
+    }
+    if (_imageCount == _images.length) {
+      _images = Arrays.copyOf(_images, 2 * _imageCount);
+      _sprites = Arrays.copyOf(_sprites, 2 * _imageCount);
+      _counts = Arrays.copyOf(_counts, 2 * _imageCount);
+    }
+    _images[_imageCount] = image;
+    _sprites[_imageCount] = new float[3 * 16];
+    _lastImage = _imageCount;
+    return _imageCount++;
+  }
+}
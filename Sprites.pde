@@ -0,0 +1,57 @@
+/**
+Images used to draw the objects of a simulation. A simulation without sprites runs headless, i.e. its objects hold no images and are never drawn.
+**/
+public class Sprites {
+
+  private PImage[] _obstacle;
+  private PImage _hero;
+  private PImage _follower;
+  private PImage _interceptor;
+  private PImage _routeCutter;
+
+  /**
+  Constructor
+  **/
+  public Sprites(PImage[] obstacle, PImage hero, PImage follower, PImage interceptor, PImage routeCutter) {
+    _obstacle = obstacle;
+    _hero = hero;
+    _follower = follower;
+    _interceptor = interceptor;
+    _routeCutter = routeCutter;
+  }
+
+  /**
+  Obstacle animation sprites getter
+  **/
+  public PImage[] getObstacle() {
+    return _obstacle;
+  }
+
+  /**
+  Hero image getter
+  **/
+  public PImage getHero() {
+    return _hero;
+  }
+
+  /**
+  Follower image getter
+  **/
+  public PImage getFollower() {
+    return _follower;
+  }
+
+  /**
+  Interceptor image getter
+  **/
+  public PImage getInterceptor() {
+    return _interceptor;
+  }
+
+  /**
+  Route cutter image getter
+  **/
+  public PImage getRouteCutter() {
+    return _routeCutter;
+  }
+}
@@ -0,0 +1,18 @@
+/**
+Player that clicks on the goal once and waits. The hero walks straight at the goal and stops at the first obstacle in the way.
+**/
+public class StraightHeroPolicy implements HeroPolicy {
+
+  /**
+  Click on the goal
+  **/
+  public void start(Simulation simulation) {
+    simulation.getHero().setDestination(simulation.getRules().getGoal());
+  }
+
+  /**
+  Nothing to do, the hero keeps going
+  **/
+  public void steer(Simulation simulation) {
+  }
+}
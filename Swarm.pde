@@ -0,0 +1,237 @@
+/**
+Assigns the coordinated roles of the hunters in bulk. Once per tick it works out the squares the roles head for from the positions of the whole swarm,
+so the cost doesn't grow with pairs of hunters: the interceptors all go halfway between the hero and the goal, and the route cutters go to the corner
+of the square formed by the middle of the followers and the middle of the interceptors that is closer to the goal. With one hunter of each kind,
+that is the game as it always was.
+With SEARCH_FLOW_FIELDS, the hunters don't search at all. They follow flow fields toward the hero and the squares of the roles, shared by the whole swarm
+and brought up to date a slice per tick (see FlowField), so thousands of hunters can play on large maps.
+**/
+public class Swarm implements WalkabilityListener {
+
+  private World _world;
+  private ArrayList<Hunter> _followers;
+  private ArrayList<Hunter> _interceptors;
+  private ArrayList<Hunter> _routeCutters;
+  private CoordinateInt _heroSquare;
+  private CoordinateInt _interceptionPoint; // square the interceptors head for
+  private CoordinateInt _cutPoint; // square the route cutters head for
+  private CoordinateInt _square; // scratch space for the squares of the hunters
+  private boolean _flowFields; // whether the hunters follow the flow fields
+  private int _fieldBudget; // nodes settled per field and tick
+  private FlowField _heroField; // only created when the flow fields are used
+  private FlowField _interceptionField;
+  private FlowField _cutField;
+
+  /**
+  Constructor. The swarm is empty until the hunters of a game are assigned.
+  **/
+  public Swarm(World world) {
+    _world = world;
+    _followers = new ArrayList<Hunter>();
+    _interceptors = new ArrayList<Hunter>();
+    _routeCutters = new ArrayList<Hunter>();
+    _heroSquare = new CoordinateInt(0, 0);
+    _interceptionPoint = new CoordinateInt(0, 0);
+    _cutPoint = new CoordinateInt(0, 0);
+    _square = new CoordinateInt(0, 0);
+    _flowFields = false;
+  }
+
+  /**
+  Sort the hunters of a new game into their roles and work out where the roles head for. The flow fields are computed again for the new obstacles.
+  **/
+  public void assign(ArrayList<Hunter> hunters, Settings settings) {
+    _followers.clear();
+    _interceptors.clear();
+    _routeCutters.clear();
+    for (Hunter hunter : hunters) {
+      if (hunter instanceof Interceptor) {
+        _interceptors.add(hunter);
+      }
+      else if (hunter instanceof RouteCutter) {
+        _routeCutters.add(hunter);
+      }
+      else {
+        _followers.add(hunter);
+      }
+    }
+    _flowFields = settings.getHunterSearchMode() == SEARCH_FLOW_FIELDS;
+    _fieldBudget = settings.getFlowFieldBudget();
+    if (_flowFields && _heroField == null) {
+      _heroField = new FlowField(_world);
+      _interceptionField = new FlowField(_world);
+      _cutField = new FlowField(_world);
+    }
+    if (_heroField != null) {
+      _heroField.invalidate();
+      _interceptionField.invalidate();
+      _cutField.invalidate();
+    }
+    prepare();
+  }
+
+  /**
+  Work out where the roles head for from the positions of this tick, and bring the flow fields closer to them if they are used.
+  The world does it when it prepares the planning, so all hunters plan against the same squares.
+  **/
+  public void prepare() {
+    _world.positionToGrid(_world.getHero().getPosition(), _heroSquare);
+    locateInterceptionPoint();
+    locateCutPoint();
+    if (_flowFields) {
+      int width = _world.getGridSize().getX();
+      _heroField.setTarget(_heroSquare.getY() * width + _heroSquare.getX());
+      _interceptionField.setTarget(_interceptionPoint.getY() * width + _interceptionPoint.getX());
+      _cutField.setTarget(_cutPoint.getY() * width + _cutPoint.getX());
+      _heroField.advance(_fieldBudget);
+      _interceptionField.advance(_fieldBudget);
+      _cutField.advance(_fieldBudget);
+    }
+  }
+
+  /**
+  Tell if the hunters follow the flow fields instead of searching
+  **/
+  public boolean usesFlowFields() {
+    return _flowFields;
+  }
+
+  /**
+  Square the interceptors head for
+  **/
+  public CoordinateInt getInterceptionPoint() {
+    return _interceptionPoint;
+  }
+
+  /**
+  Square the route cutters head for
+  **/
+  public CoordinateInt getCutPoint() {
+    return _cutPoint;
+  }
+
+  /**
+  Next node from a node toward a destination along the flow field heading there, with the caller's scratch space (8 neighbors and costs).
+  Near a target that moved since its field was computed, the field ends early, so the last squares are taken straight toward the destination.
+  Returns -1 at the destination or if there is no way to get closer.
+  **/
+  public int nextStep(int from, int to, int[] neighbors, double[] costs) {
+    if (from == to) {
+      return -1;
+    }
+    FlowField field = null;
+    if (_heroField != null) {
+      if (_heroField.getTarget() == to) {
+        field = _heroField;
+      }
+      else if (_interceptionField.getTarget() == to) {
+        field = _interceptionField;
+      }
+      else if (_cutField.getTarget() == to) {
+        field = _cutField;
+      }
+    }
+    int step = field != null ? field.nextStep(from, neighbors, costs) : -1;
+    return step != -1 ? step : straightStep(from, to, neighbors, costs);
+  }
+
+  /**
+  The walkable neighbor closest to the destination as the crow flies, if it is closer than the node itself. -1 otherwise.
+  **/
+  private int straightStep(int from, int to, int[] neighbors, double[] costs) {
+    GridGraph graph = _world.getGridGraph();
+    int best = -1;
+    double bestDistance = graph.heuristic(from, to);
+    int count = graph.neighbors(from, neighbors, costs);
+    for (int i = 0; i < count; i++) {
+      double distance = graph.heuristic(neighbors[i], to);
+      if (distance < bestDistance) {
+        best = neighbors[i];
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+
+  /**
+  Halfway between the hero and the goal. If it isn't walkable, the closest square toward the hero is.
+  **/
+  private void locateInterceptionPoint() {
+    CoordinateInt goal = _world.getRules().getGoal();
+    _interceptionPoint.set((_heroSquare.getX() + goal.getX()) / 2, (_heroSquare.getY() + goal.getY()) / 2);
+    approachHero(_interceptionPoint);
+  }
+
+  /**
+  The middles of the followers and of the interceptors are on two corners of a square. The corner closer (Manhattan distance) to the goal of the other two is the cut point.
+  If it isn't walkable, the closest square toward the hero is.
+  **/
+  private void locateCutPoint() {
+    middle(_followers);
+    int x1 = _square.getX();
+    int y1 = _square.getY();
+    middle(_interceptors);
+    int x2 = _square.getX();
+    int y2 = _square.getY();
+    CoordinateInt goal = _world.getRules().getGoal();
+
+    // calculate manhattan distance to goal of both corners and choose the closer one
+    int distance1 = abs(goal.getX() - x1) + abs(goal.getY() - y2);
+    int distance2 = abs(goal.getX() - x2) + abs(goal.getY() - y1);
+    if (distance1 < distance2) {
+      _cutPoint.set(x1, y2);
+    }
+    else {
+      _cutPoint.set(x2, y1);
+    }
+    approachHero(_cutPoint);
+  }
+
+  /**
+  Put the average square of a group of hunters in the scratch square. The square of the hero if the group is empty.
+  **/
+  private void middle(ArrayList<Hunter> hunters) {
+    if (hunters.isEmpty()) {
+      _square.set(_heroSquare);
+      return;
+    }
+    long x = 0;
+    long y = 0;
+    for (int i = 0; i < hunters.size(); i++) {
+      _world.positionToGrid(hunters.get(i).getPosition(), _square);
+      x += _square.getX();
+      y += _square.getY();
+    }
+    _square.set((int) (x / hunters.size()), (int) (y / hunters.size()));
+  }
+
+  /**
+  Move a square toward the hero until it is walkable. It ends, since the square of the hero is walkable.
+  **/
+  private void approachHero(CoordinateInt square) {
+    while (!_world.isWalkable(square)) {
+      // take a look at which dimension is further away from hero and decrease that one
+      int gradientX = square.getX() - _heroSquare.getX();
+      int gradientY = square.getY() - _heroSquare.getY();
+      if (abs(gradientX) > abs(gradientY)) {
+        int unit = gradientX > 0 ? 1 : -1;
+        square.set(square.getX() - unit, square.getY());
+      }
+      else {
+        int unit = gradientY > 0 ? 1 : -1;
+        square.set(square.getX(), square.getY() - unit);
+      }
+    }
+  }
+
+  /**
+  The flow fields have to be computed again when squares change during a game. The hunters follow the old ones meanwhile.
+  **/
+  public void walkabilityChanged(int x0, int y0, int x1, int y1) {
+    if (_heroField != null) {
+      _heroField.refresh();
+      _interceptionField.refresh();
+      _cutField.refresh();
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/**
+Benchmark a whole tick of a swarm game: many hunters split evenly between the roles, with the hero heading for the goal. With SEARCH_FLOW_FIELDS it is the load test of the flow fields,
+with SEARCH_SCHEDULED the one of the planning scheduler.
+A game that ends is started again, which is rare enough not to matter for the average.
+**/
+public class SwarmBenchmark extends Benchmark {
+
+  private int _hunters;
+  private int _searchMode;
+  private Simulation _simulation;
+
+  /**
+  Constructor. Takes the number of hunters of the swarm and their search mode.
+  **/
+  public SwarmBenchmark(int hunters, int searchMode) {
+    super(searchMode == SEARCH_SCHEDULED ? "Simulation.step+scheduled" : "Simulation.step+swarm");
+    _hunters = hunters;
+    _searchMode = searchMode;
+  }
+
+  /**
+  Start a game with the swarm in its search mode
+  **/
+  public void setUp(Simulation simulation, View view) {
+    _simulation = simulation;
+    Settings settings = simulation.getSettings();
+    settings.setFollowers(_hunters - 2 * (_hunters / 3));
+    settings.setInterceptors(_hunters / 3);
+    settings.setRouteCutters(_hunters / 3);
+    settings.setHunterSearchMode(_searchMode);
+    newGame();
+  }
+
+  /**
+  Advance the game by a tick
+  **/
+  public int operation() {
+    if (_simulation.step() != PLAYING) {
+      newGame();
+    }
+    return _simulation.getTick();
+  }
+
+  /**
+  Start a game with the hero heading for the goal
+  **/
+  private void newGame() {
+    _simulation.newGame(null);
+    _simulation.getHero().setDestination(_simulation.getRules().getGoal());
+  }
+}
@@ -20,9 +20,16 @@ public class Tile implements Drawable {
   Draw the tile image
   **/
   public void draw(View view) {
+    draw(g, view);
+  }
+  
+  /**
+  Draw the tile image into some graphics, e.g. the off-screen image of the background layer
+  **/
+  public void draw(PGraphics graphics, View view) {
     CoordinateInt position = view.convert(_position);
     CoordinateInt size = view.convert(_size);
-    imageMode(CORNER);
-    image(_image, position.getX(), position.getY(), size.getX(), size.getY());
+    graphics.imageMode(CORNER);
+    graphics.image(_image, position.getX(), position.getY(), size.getX(), size.getY());
   }
 }
@@ -6,6 +6,8 @@ public class View {
   private World _world;
   private double _xFactor;
   private double _yFactor;
+  private SpriteBatch _spriteBatch;
+  private double _interpolation; // how far the frame is between the last two ticks, from 0 to 1
   
   /**
   Constructor
@@ -14,20 +16,63 @@ public class View {
     _world = world;
     _xFactor = width / _world.getSize().getX();
     _yFactor = height / _world.getSize().getY();
+    _spriteBatch = new SpriteBatch();
+    _interpolation = 1;
+  }
+  
+  /**
+  Interpolation setter. How far the frame is from the last tick to the next one, between 0 and 1. Moving things are drawn that far from where they were before the last tick to where they are.
+  **/
+  public void setInterpolation(double interpolation) {
+    _interpolation = interpolation;
+  }
+  
+  /**
+  Sprite batch getter. Sprites added to it are drawn when the sketch flushes it, after all the drawables.
+  **/
+  public SpriteBatch getSpriteBatch() {
+    return _spriteBatch;
   }
   
   /**
   Convert a world coordinate to screen coordinate
   **/
   public CoordinateInt convert(CoordinateDouble coordinate) {
-    return new CoordinateInt((int) (coordinate.getX() * _xFactor), (int) (coordinate.getY() * _yFactor));
+    return convert(coordinate, new CoordinateInt(0, 0));
+  }
+  
+  /**
+  Convert a world coordinate to screen coordinate, saving it in result, which is returned
+  **/
+  public CoordinateInt convert(CoordinateDouble coordinate, CoordinateInt result) {
+    result.set((int) (coordinate.getX() * _xFactor), (int) (coordinate.getY() * _yFactor));
+    return result;
+  }
+ 
+  /**
+  Convert the position of something moving to screen coordinate, interpolated between where it was before the last tick and where it is now. The result is saved in result, which is returned.
+  **/
+  public CoordinateInt convert(CoordinateDouble previous, CoordinateDouble current, CoordinateInt result) {
+    double x = previous.getX() + (current.getX() - previous.getX()) * _interpolation;
+    double y = previous.getY() + (current.getY() - previous.getY()) * _interpolation;
+    result.set((int) (x * _xFactor), (int) (y * _yFactor));
+    return result;
   }
  
   /**
   Convert a grid coordinate to screen coordinate.
   **/  
   public CoordinateInt convert(CoordinateInt gridCoordinate) {
-    return convert(_world.gridToPosition(gridCoordinate));
+    return convert(gridCoordinate, new CoordinateInt(0, 0));
+  }
+  
+  /**
+  Convert a grid coordinate to screen coordinate, saving it in result, which is returned
+  **/
+  public CoordinateInt convert(CoordinateInt gridCoordinate, CoordinateInt result) {
+    CoordinateDouble tileSize = _world.getTileSize();
+    result.set((int) (gridCoordinate.getX() * tileSize.getX() * _xFactor), (int) (gridCoordinate.getY() * tileSize.getY() * _yFactor));
+    return result;
   }
   
   /**
@@ -0,0 +1,10 @@
+/**
+Interface for objects that cache something depending on which squares are walkable, e.g. the state of a search. The world tells them when squares change during a game.
+**/
+interface WalkabilityListener {
+
+  /**
+  The walkability of the squares in the rectangle from x0, y0 to x1, y1 (both inclusive) may have changed
+  **/
+  public void walkabilityChanged(int x0, int y0, int x1, int y1);
+}
@@ -0,0 +1,155 @@
+import java.nio.LongBuffer;
+
+/**
+Grid of flags telling which squares can be visited, packed into bits. The rows are stored one after the other, each starting at a new long word, with bit x % 64 of word x / 64 for the square in column x.
+A square takes one bit instead of a byte, so large maps stay in the caches, and whole words of squares can be tested and counted at once.
+**/
+public class WalkableGrid {
+
+  private int _width;
+  private int _height;
+  private int _wordsPerRow;
+  private long[] _words;
+
+  /**
+  Constructor. All squares start walkable.
+  **/
+  public WalkableGrid(int width, int height) {
+    _width = width;
+    _height = height;
+    _wordsPerRow = (width + 63) >>> 6;
+    _words = new long[_wordsPerRow * height];
+    fill(true);
+  }
+
+  /**
+  Width getter
+  **/
+  public int getWidth() {
+    return _width;
+  }
+
+  /**
+  Height getter
+  **/
+  public int getHeight() {
+    return _height;
+  }
+
+  /**
+  Query if the square at x, y can be visited. The square has to be inside the grid, it isn't checked (see World.isWalkable()).
+  **/
+  public boolean isWalkable(int x, int y) {
+    return (_words[y * _wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+  }
+
+  /**
+  Set if the square at x, y can be visited
+  **/
+  public void setWalkable(int x, int y, boolean walkable) {
+    int word = y * _wordsPerRow + (x >>> 6);
+    if (walkable) {
+      _words[word] |= 1L << x;
+    }
+    else {
+      _words[word] &= ~(1L << x);
+    }
+  }
+
+  /**
+  Make all squares walkable or not walkable
+  **/
+  public void fill(boolean walkable) {
+    if (!walkable) {
+      Arrays.fill(_words, 0);
+      return;
+    }
+    // the bits past the end of a row stay clear, so they never count as walkable
+    for (int y = 0; y < _height; y++) {
+      for (int x = 0; x < _width; x += 64) {
+        _words[y * _wordsPerRow + (x >>> 6)] = rowMask(x, min(_width, x + 64) - 1);
+      }
+    }
+  }
+
+  /**
+  Set the squares from longs in the layout of the grid, e.g. of a map file. The words are copied in bulk, since the squares are read far more often than they are loaded.
+  **/
+  public void readWords(LongBuffer words) {
+    words.get(_words);
+  }
+
+  /**
+  Put the squares into longs in the layout of the grid, e.g. of a map file
+  **/
+  public void writeWords(LongBuffer words) {
+    words.put(_words);
+  }
+
+  /**
+  Up to 64 squares of a row starting at column x, one bit each with the square at x in the lowest bit. Squares outside the grid read as not walkable.
+  **/
+  public long getBits(int x, int y) {
+    if (y < 0 || y >= _height || x >= _width || x <= -64) {
+      return 0;
+    }
+    if (x < 0) {
+      return getBits(0, y) << -x;
+    }
+    int word = y * _wordsPerRow + (x >>> 6);
+    int shift = x & 63;
+    long bits = _words[word] >>> shift;
+    if (shift != 0 && (x >>> 6) + 1 < _wordsPerRow) {
+      bits |= _words[word + 1] << (64 - shift);
+    }
+    return bits;
+  }
+
+  /**
+  Query if all the squares in the rectangle from x0, y0 to x1, y1 (both inclusive) can be visited
+  **/
+  public boolean isRectangleWalkable(int x0, int y0, int x1, int y1) {
+    for (int y = y0; y <= y1; y++) {
+      for (int word = x0 >>> 6; word <= x1 >>> 6; word++) {
+        long mask = rowMask(max(x0, word << 6), min(x1, (word << 6) + 63));
+        if ((_words[y * _wordsPerRow + word] & mask) != mask) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+  Number of walkable squares in the rectangle from x0, y0 to x1, y1 (both inclusive)
+  **/
+  public int countWalkable(int x0, int y0, int x1, int y1) {
+    int count = 0;
+    for (int y = y0; y <= y1; y++) {
+      for (int word = x0 >>> 6; word <= x1 >>> 6; word++) {
+        long mask = rowMask(max(x0, word << 6), min(x1, (word << 6) + 63));
+        count += Long.bitCount(_words[y * _wordsPerRow + word] & mask);
+      }
+    }
+    return count;
+  }
+
+  /**
+  Number of walkable squares in the whole grid
+  **/
+  public int countWalkable() {
+    int count = 0;
+    for (long word : _words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+  Bits of the columns x0 to x1 (both inclusive) within their word. Both have to be in the same word.
+  **/
+  private long rowMask(int x0, int x1) {
+    long upTo = (x1 & 63) == 63 ? -1L : (1L << (x1 + 1)) - 1;
+    return upTo & (-1L << x0);
+  }
+}
@@ -1,4 +1,5 @@
 import pathfinder.*;
+import java.util.Random;
 
 /**
 Class that holds the information about our gaming world. It also acts as a mediator between the objects in it.
@@ -8,22 +9,47 @@ public class World implements Drawable {
   private CoordinateInt _gridSize;
   private CoordinateDouble _tileSize;
   private Tile[][] _tiles;
-  private boolean[][] _walkable;
+  private BackgroundLayer _background; // the tiles composited into one image
+  private WalkableGrid _walkable;
   private Hero _hero;
   private ArrayList<Hunter> _hunters;
-  private Graph _graph;
+  private Graph _graph; // only built when asked for
+  private GridGraph _gridGraph;
   private Rules _rules;
+  private Swarm _swarm;
+  private Random _random;
+  private DistanceField _heroDistanceField;
+  private JumpTable _jumpTable;
+  private ClusterMap _clusterMap;
+  private AgentIndex _agentIndex; // only created when first asked for
+  private ArrayList<WalkabilityListener> _walkabilityListeners;
+  private ObstaclePlacer _obstaclePlacer;
+  private int[] _obstacleSquares; // scratch space for the squares drawn by the obstacle placer
+  private MapFile _map; // null unless the games are played on a prepared map
+  private boolean _mapIntact; // whether the squares are those of the map, so its jumps can be used
   
   /**
-  Constructor
+  Constructor. The background image may be null for a headless world, which has no tiles to draw.
   **/
   public World(double worldWidth, double worldHeight, int gridWidth, int gridHeight, PImage backgroundImage) {
     _size = new CoordinateDouble(worldWidth, worldHeight);
     _gridSize = new CoordinateInt(gridWidth, gridHeight);
+    _tileSize = new CoordinateDouble(worldWidth / (double) gridWidth, worldHeight / (double) gridHeight);
+    _random = new Random();
+    _walkabilityListeners = new ArrayList<WalkabilityListener>();
+    
+    // create the walkable grid. the values will be set when the objects are placed 
+    _walkable = new WalkableGrid(gridWidth, gridHeight);
+    _gridGraph = new GridGraph(this);
+    _obstaclePlacer = new ObstaclePlacer(_walkable);
+    _obstacleSquares = new int[0];
+    
+    if (backgroundImage == null) {
+      return;
+    }
         
     // divide the world into tiles (grid)
     _tiles = new Tile[gridWidth][gridHeight];
-    _tileSize = new CoordinateDouble(worldWidth / (double) gridWidth, worldHeight / (double) gridHeight);
     double tileImageWidth = backgroundImage.width / gridWidth;
     double tileImageHeight = backgroundImage.height / gridHeight;
     // assign each tile the corresponding part of the background image and its position in the world
@@ -34,35 +60,76 @@ public class World implements Drawable {
         _tiles[x][y] = new Tile(image, _tileSize, position);
       }
     }
-    
-    // create empty walkable matrix. the values will be set when the objects are placed 
-    _walkable = new boolean[gridWidth][gridHeight];
+    _background = new BackgroundLayer(_tiles);
   }
   
   /**
-  Place the obstacles according to the Rules and build the walkable matrix.
-  Call the method to build the graph representation of the world.
+  Constructor for a world whose games are all played on a prepared map, instead of on obstacles placed at random. The grid has the size of the map.
+  The squares of the map are set right away, and set again for every game with restoreMap(). The background image may be null for a headless world.
+  With a background image, every square becomes a tile, so large maps are only for headless worlds (see MIN_TILE_SIZE).
+  **/
+  public World(double worldWidth, double worldHeight, MapFile map, PImage backgroundImage) {
+    this(worldWidth, worldHeight, map.getGridSize().getX(), map.getGridSize().getY(), backgroundImage);
+    _map = map;
+    restoreMap();
+  }
+  
+  /**
+  Place the obstacles on random squares off the first and the last column and build the walkable grid. The last column can always be reached from the first one (see ObstaclePlacer).
+  The grid graph reads the grid directly. The graph for the path finding library is built again when it is asked for next.
   **/  
   public void positionObstacles(ArrayList<Obstacle> obstacles) {
     
-    // reset walkable matrix
-    for (int x = 0; x < _gridSize.getX(); x++) {
-      for (int y = 0; y < _gridSize.getY(); y++) {
-        _walkable[x][y] = true;
-      }
+    // reset the walkable grid and draw the squares of the obstacles, keeping the goal reachable
+    if (_obstacleSquares.length < obstacles.size()) {
+      _obstacleSquares = new int[obstacles.size()];
     }
+    _obstaclePlacer.place(obstacles.size(), _random, _obstacleSquares);
     
-    for (Obstacle obstacle : obstacles) {
-      // get a position from the rules
-      CoordinateInt position = _rules.generateObstaclePosition();
-            
-      // assign position to obstacle and walkable matrix
-      obstacle.setPosition(position);
-      _walkable[position.getX()][position.getY()] = false;
+    // assign the positions to the obstacles
+    for (int i = 0; i < obstacles.size(); i++) {
+      int square = _obstacleSquares[i];
+      obstacles.get(i).setPosition(square % _gridSize.getX(), square / _gridSize.getX());
     }
     
-    // build graph for path finding library
-    buildGraph();
+    _mapIntact = false;
+    obstaclesReplaced();
+  }
+  
+  /**
+  Set the squares back to those of the map, e.g. for a new game, instead of placing obstacles. Everything built on the squares is built again when it is asked for next,
+  except the jumps, which are read from the map if it holds them.
+  **/
+  public void restoreMap() {
+    _map.readWalkability(_walkable);
+    _mapIntact = true;
+    obstaclesReplaced();
+  }
+  
+  /**
+  Map getter. Null if the obstacles are placed at random.
+  **/
+  public MapFile getMap() {
+    return _map;
+  }
+  
+  /**
+  Forget everything built on the squares after all of them were set anew
+  **/
+  private void obstaclesReplaced() {
+    // forget the graph for the path finding library
+    _graph = null;
+    
+    // the distances to the hero, the jumps and the clusters have to be computed again for the new obstacles
+    if (_heroDistanceField != null) {
+      _heroDistanceField.invalidate();
+    }
+    if (_jumpTable != null) {
+      _jumpTable.invalidate();
+    }
+    if (_clusterMap != null) {
+      _clusterMap.invalidate();
+    }
   }
   
   /**
@@ -73,7 +140,6 @@ public class World implements Drawable {
     
     // create nodes. one node for each tile. they are not connected yet.
     int c = 0; // node id counter
-    CoordinateInt gridPosition = new CoordinateInt(0, 0);
     for (int y = 0; y < _gridSize.getY(); y++) {
       for (int x = 0; x < _gridSize.getX(); x++) {
         _graph.addNode(new GraphNode(c));
@@ -83,12 +149,11 @@ public class World implements Drawable {
     
     // create the edges. step through the nodes and connect them to the neighbors
     c = 0;
-    double sqrtTwo = sqrt(2);
+    double sqrtTwo = Math.sqrt(2);
     for (int y = 0; y < _gridSize.getY(); y++) {
       for (int x = 0; x < _gridSize.getX(); x++) {
         // make sure we are on a walkable edge
-        gridPosition.set(x, y);
-        if (!this.isWalkable(gridPosition)) {
+        if (!this.isWalkable(x, y)) {
           c++;
           continue;
         }
@@ -99,13 +164,10 @@ public class World implements Drawable {
           if (y > 0) {
             // make sure the hunter won't get stuck, so diagonal edges may not have adjacent obstacles
             // upper and right positions need to be walkable
-            gridPosition.set(x, y - 1);
-            if (this.isWalkable(gridPosition)) {
-              gridPosition.set(x + 1, y);
-              if (this.isWalkable(gridPosition)) {
+            if (this.isWalkable(x, y - 1)) {
+              if (this.isWalkable(x + 1, y)) {
                 // of course, the destination square, i.e. the upper right one needs to be walkbable as well
-                gridPosition.set(x + 1, y - 1);
-                if (this.isWalkable(gridPosition)) {
+                if (this.isWalkable(x + 1, y - 1)) {
                   // it is, so create the edge
                   _graph.addEdge(c, c - _gridSize.getX() + 1, sqrtTwo, sqrtTwo);
                 }
@@ -113,21 +175,17 @@ public class World implements Drawable {
             }
           }
           // plain right
-          gridPosition.set(x + 1, y);
-          if (this.isWalkable(gridPosition)) {
+          if (this.isWalkable(x + 1, y)) {
             _graph.addEdge(c, c + 1, 1, 1);
           }
           // lower right
           if (y < _gridSize.getY() - 1) {
             // make sure the hunter won't get stuck, so diagonal edges may not have adjacent obstacles
             // lower and right positions need to be walkable
-            gridPosition.set(x, y + 1);
-            if (this.isWalkable(gridPosition)) {
-              gridPosition.set(x + 1, y);
-              if (this.isWalkable(gridPosition)) {
+            if (this.isWalkable(x, y + 1)) {
+              if (this.isWalkable(x + 1, y)) {
                 // of course, the destination square, i.e. the lower right one needs to be walkbable as well
-                gridPosition.set(x + 1, y + 1);
-                if (this.isWalkable(gridPosition)) {
+                if (this.isWalkable(x + 1, y + 1)) {
                   _graph.addEdge(c, c + _gridSize.getX() + 1, sqrtTwo, sqrtTwo);
                 }
               }
@@ -136,8 +194,7 @@ public class World implements Drawable {
         }
         // below
         if (y < _gridSize.getY() - 1) {
-          gridPosition.set(x, y + 1);
-          if (this.isWalkable(gridPosition)) {
+          if (this.isWalkable(x, y + 1)) {
             _graph.addEdge(c, c + _gridSize.getX(), 1, 1);
           }
         }
@@ -147,17 +204,150 @@ public class World implements Drawable {
   }
   
   /**
-  Tell the world about the hero.
+  Put an obstacle on a square during a game, e.g. one that moves or appears. Only what depends on the square is updated (see setWalkable()).
+  Drawing the obstacle is up to the caller. So is keeping the goal reachable.
+  **/
+  public void addObstacle(int x, int y) {
+    setWalkable(x, y, false);
+  }
+  
+  /**
+  Take the obstacle off a square during a game, e.g. one that moves or is destroyed. Only what depends on the square is updated (see setWalkable()).
+  **/
+  public void removeObstacle(int x, int y) {
+    setWalkable(x, y, true);
+  }
+  
+  /**
+  Change whether a tile can be visited during a game, e.g. for an obstacle that appears or disappears.
+  Everything that depends on it is told about the change: the distances to the hero, the jumps, the clusters, the hunters and the registered listeners.
+  The graph for the path finding library, the jumps and the clusters are patched around the square instead of being built again, so a change costs about as much
+  as a line of the grid, not the whole map. The listeners are told the square that changed. Paths next to it may change too, since diagonals may not cut its corners.
+  **/
+  public void setWalkable(int x, int y, boolean walkable) {
+    if (_walkable.isWalkable(x, y) == walkable) {
+      return;
+    }
+    _walkable.setWalkable(x, y, walkable);
+    _mapIntact = false;
+    
+    if (_graph != null) {
+      patchGraph(x, y);
+    }
+    if (_heroDistanceField != null) {
+      _heroDistanceField.invalidate();
+    }
+    if (_jumpTable != null) {
+      _jumpTable.update(x, y);
+    }
+    if (_clusterMap != null) {
+      _clusterMap.invalidate(x, y);
+    }
+    if (_hunters != null) {
+      for (Hunter hunter : _hunters) {
+        hunter.walkabilityChanged(x, y, x, y);
+      }
+    }
+    for (WalkabilityListener listener : _walkabilityListeners) {
+      listener.walkabilityChanged(x, y, x, y);
+    }
+  }
+  
+  /**
+  Bring the edges of the graph for the path finding library up to date after a square changed walkability.
+  The edges that can change are those of the square and the diagonals between its neighbors that pass its corners, so all of them join two squares within one square of it.
+  **/
+  private void patchGraph(int x, int y) {
+    int x0 = Math.max(0, x - 1);
+    int y0 = Math.max(0, y - 1);
+    int x1 = Math.min(_gridSize.getX() - 1, x + 1);
+    int y1 = Math.min(_gridSize.getY() - 1, y + 1);
+    double sqrtTwo = Math.sqrt(2);
+    for (int fromY = y0; fromY <= y1; fromY++) {
+      for (int fromX = x0; fromX <= x1; fromX++) {
+        int from = fromY * _gridSize.getX() + fromX;
+        for (int dy = -1; dy <= 1; dy++) {
+          for (int dx = -1; dx <= 1; dx++) {
+            int toX = fromX + dx;
+            int toY = fromY + dy;
+            if ((dx == 0 && dy == 0) || toX < x0 || toX > x1 || toY < y0 || toY > y1) {
+              continue;
+            }
+            int to = toY * _gridSize.getX() + toX;
+            boolean edge = hasEdge(fromX, fromY, dx, dy);
+            // the library keeps no edge list for nodes without edges, and hasEdge() doesn't expect that
+            boolean present = _graph.getEdgeList(from) != null && _graph.hasEdge(from, to);
+            if (edge && !present) {
+              _graph.addEdge(from, to, dx != 0 && dy != 0 ? sqrtTwo : 1);
+            }
+            else if (!edge && present) {
+              _graph.removeEdge(from, to);
+            }
+          }
+        }
+      }
+    }
+  }
+  
+  /**
+  Whether the graph for the path finding library has an edge from the square at x, y to its neighbor in a direction. The rule is that of buildGraph():
+  both squares are walkable, and diagonals may not have a not walkable square next to them, so the hunters won't get stuck.
+  **/
+  private boolean hasEdge(int x, int y, int dx, int dy) {
+    if (!this.isWalkable(x, y) || !this.isWalkable(x + dx, y + dy)) {
+      return false;
+    }
+    return dx == 0 || dy == 0 || (this.isWalkable(x + dx, y) && this.isWalkable(x, y + dy));
+  }
+  
+  /**
+  Register an object to be told when tiles change walkability during a game. The hunters don't need to register.
+  **/
+  public void addWalkabilityListener(WalkabilityListener listener) {
+    _walkabilityListeners.add(listener);
+  }
+  
+  /**
+  Stop telling an object about walkability changes
+  **/
+  public void removeWalkabilityListener(WalkabilityListener listener) {
+    _walkabilityListeners.remove(listener);
+  }
+  
+  /**
+  Tell the world about the hero. It replaces the previous hero in the agent index.
   **/
   public void registerHero(Hero hero) {
+    if (_hero != null) {
+      getAgentIndex().remove(_hero);
+    }
     _hero = hero;
+    getAgentIndex().add(hero);
   }
   
   /**
-  Tell the world about a hunter.
+  Tell the world about a hunter. They replace the previous hunters in the agent index.
   **/
   public void registerHunters(ArrayList<Hunter> hunters) {
+    if (_hunters != null) {
+      for (Hunter hunter : _hunters) {
+        getAgentIndex().remove(hunter);
+      }
+    }
     _hunters = hunters;
+    for (Hunter hunter : hunters) {
+      getAgentIndex().add(hunter);
+    }
+  }
+  
+  /**
+  Agents by square, to find who is on a square or near a position without going through all of them. The registered agents are in it.
+  **/
+  public AgentIndex getAgentIndex() {
+    if (_agentIndex == null) {
+      _agentIndex = new AgentIndex(this);
+    }
+    return _agentIndex;
   }
   
   /**
@@ -167,56 +357,113 @@ public class World implements Drawable {
     _rules = rules;
   }
   
+  /**
+  Tell the world about the swarm assigning the roles of the hunters. It is told about walkability changes.
+  **/
+  public void registerSwarm(Swarm swarm) {
+    if (_swarm != null) {
+      removeWalkabilityListener(_swarm);
+    }
+    _swarm = swarm;
+    addWalkabilityListener(swarm);
+  }
+  
   /**
   Transform a world position to a grid position.
   **/
   public CoordinateInt positionToGrid(CoordinateDouble position) {
-    int gridPositionX = (int) (position.getX() / _tileSize.getX());
-    int gridPositionY = (int) (position.getY() / _tileSize.getY());
-    return new CoordinateInt(gridPositionX, gridPositionY); 
+    return positionToGrid(position, new CoordinateInt(0, 0));
+  }
+  
+  /**
+  Transform a world position to a grid position, saving it in result, which is returned
+  **/
+  public CoordinateInt positionToGrid(CoordinateDouble position, CoordinateInt result) {
+    result.set((int) (position.getX() / _tileSize.getX()), (int) (position.getY() / _tileSize.getY()));
+    return result;
+  }
+  
+  /**
+  Transform a world position to the node of its square in the grid graph
+  **/
+  public int positionToNode(CoordinateDouble position) {
+    return (int) (position.getY() / _tileSize.getY()) * _gridSize.getX() + (int) (position.getX() / _tileSize.getX());
   }
   
   /**
   Transform a grid position to a world position. The world position is the upper left corner of the tile.
   **/
   public CoordinateDouble gridToPosition(CoordinateInt gridPosition) {
-    double positionX = gridPosition.getX() * _tileSize.getX();
-    double positionY = gridPosition.getY() * _tileSize.getY();
-    return new CoordinateDouble(positionX, positionY); 
+    return gridToPosition(gridPosition, new CoordinateDouble(0, 0));
+  }
+  
+  /**
+  Transform a grid position to the world position of the upper left corner of the tile, saving it in result, which is returned
+  **/
+  public CoordinateDouble gridToPosition(CoordinateInt gridPosition, CoordinateDouble result) {
+    result.set(gridPosition.getX() * _tileSize.getX(), gridPosition.getY() * _tileSize.getY());
+    return result;
   }
   
   /**
   Transform a grid position to a world position. The world position is the center of the tile.
   **/
   public CoordinateDouble gridCenterToPosition(CoordinateInt gridPosition) {
-    double positionX = (gridPosition.getX() + 0.5) * _tileSize.getX();
-    double positionY = (gridPosition.getY() + 0.5) * _tileSize.getY();
-    return new CoordinateDouble(positionX, positionY); 
+    return gridCenterToPosition(gridPosition, new CoordinateDouble(0, 0));
   }
   
   /**
-  Query if a tile can be visited.
+  Transform a grid position to the world position of the center of the tile, saving it in result, which is returned
+  **/
+  public CoordinateDouble gridCenterToPosition(CoordinateInt gridPosition, CoordinateDouble result) {
+    result.set((gridPosition.getX() + 0.5) * _tileSize.getX(), (gridPosition.getY() + 0.5) * _tileSize.getY());
+    return result;
+  }
+  
+  /**
+  Query if a tile is inside the grid and can be visited.
   **/
   public boolean isWalkable(CoordinateInt position) {
-    return _walkable[position.getX()][position.getY()];
+    return isWalkable(position.getX(), position.getY());
+  }
+  
+  /**
+  Query if the tile at grid position x, y is inside the grid and can be visited. The bits of the walkable grid run on past the end of a row, so they aren't asked outside of it.
+  **/
+  public boolean isWalkable(int x, int y) {
+    return x >= 0 && y >= 0 && x < _gridSize.getX() && y < _gridSize.getY() && _walkable.isWalkable(x, y);
   }
   
   /**
   Query if a world position can be visited.
   **/
   public boolean isWalkable(CoordinateDouble position) {
-    return isWalkable(this.positionToGrid(position));
+    return isWalkable(position.getX(), position.getY());
+  }
+  
+  /**
+  Query if the world position x, y can be visited.
+  **/
+  public boolean isWalkable(double x, double y) {
+    return isWalkable((int) (x / _tileSize.getX()), (int) (y / _tileSize.getY()));
   }
   
   /**
-  Draw the world, i.e. the tiles.
+  Draw the world, i.e. the tiles. They are composited once into the background layer, which is drawn as a single image.
   **/
   public void draw(View view) {
-    for (int x = 0; x < _tiles.length; x++) {
-      for (int y = 0; y < _tiles[x].length; y++) {
-        _tiles[x][y].draw(view);
-      }
+    // a headless world has nothing to draw
+    if (_background == null) {
+      return;
     }
+    _background.draw(view);
+  }
+  
+  /**
+  Background layer getter. Null for a headless world.
+  **/
+  public BackgroundLayer getBackground() {
+    return _background;
   }
   
   /**
@@ -255,12 +502,102 @@ public class World implements Drawable {
   }
   
   /**
-  Graphh getter
+  Graph for the path finding library. It has an object for every square and edge, so it is only built on the first call after the obstacles changed.
+  The searches of the game use the grid graph instead.
   **/
   public Graph getGraph() {
+    if (_graph == null) {
+      buildGraph();
+    }
     return _graph;
   }
   
+  /**
+  Walkable grid getter. For queries on whole rows or rectangles of squares.
+  **/
+  public WalkableGrid getWalkableGrid() {
+    return _walkable;
+  }
+  
+  /**
+  Grid graph getter
+  **/
+  public GridGraph getGridGraph() {
+    return _gridGraph;
+  }
+  
+  /**
+  Distances from every square to the hero, shared by all the hunters chasing the hero.
+  They are only computed again when the hero has moved to another square since the last call, i.e. at most once per tick.
+  **/
+  public DistanceField getHeroDistanceField() {
+    if (_heroDistanceField == null) {
+      _heroDistanceField = new DistanceField(this);
+    }
+    int root = positionToNode(_hero.getPosition());
+    if (_heroDistanceField.getRoot() != root) {
+      _heroDistanceField.compute(root);
+    }
+    return _heroDistanceField;
+  }
+  
+  /**
+  Precomputed jumps for Jump Point Search, shared by all the searches using them. They are computed on the first call after the obstacles changed,
+  or read from the map if the squares are still those of a map holding jumps.
+  **/
+  public JumpTable getJumpTable() {
+    if (_jumpTable == null) {
+      _jumpTable = new JumpTable(this);
+    }
+    if (!_jumpTable.isValid()) {
+      if (_mapIntact && _map.hasJumps()) {
+        _map.readJumps(_jumpTable);
+      }
+      else {
+        _jumpTable.compute();
+      }
+    }
+    return _jumpTable;
+  }
+  
+  /**
+  Precomputed jumps for Jump Point Search if they are up to date, without computing them. Null otherwise.
+  **/
+  public JumpTable getComputedJumpTable() {
+    return _jumpTable != null && _jumpTable.isValid() ? _jumpTable : null;
+  }
+  
+  /**
+  Clusters for hierarchical path finding, shared by all the searches using them. They are built on the first call, and afterwards only the clusters whose squares changed are rebuilt.
+  **/
+  public ClusterMap getClusterMap() {
+    if (_clusterMap == null) {
+      _clusterMap = new ClusterMap(this, CLUSTER_SIZE);
+    }
+    _clusterMap.update();
+    return _clusterMap;
+  }
+  
+  /**
+  Bring everything the searches share up to date: the squares the roles of the swarm head for, the distances to the hero for the square it is on now,
+  and the jumps and the clusters if they are in use. Hunters following the flow fields of the swarm don't need the distances to the hero.
+  Afterwards the searches only read the world, so the hunters can plan at the same time.
+  **/
+  public void preparePlanning() {
+    if (_swarm != null) {
+      _swarm.prepare();
+    }
+    if (_hero != null && (_swarm == null || !_swarm.usesFlowFields())) {
+      getHeroDistanceField();
+    }
+    if (_jumpTable != null) {
+      getJumpTable();
+    }
+    if (_clusterMap != null) {
+      getClusterMap();
+    }
+  }
+  
   /**
   Rules getter
   **/ 
@@ -268,4 +605,18 @@ public class World implements Drawable {
     return _rules;
   }
   
+  /**
+  Swarm getter
+  **/
+  public Swarm getSwarm() {
+    return _swarm;
+  }
+  
+  /**
+  Random number generator getter. Every random decision of a game is taken with it, so worlds don't share state.
+  **/
+  public Random getRandom() {
+    return _random;
+  }
+  
 }
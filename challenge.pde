@@ -1,5 +1,11 @@
 /*
-Controls: Click where you want to go. p or P pauses the game.
+Controls: Click where you want to go. p or P pauses the game. r or R saves a recording of the current game to the recordings folder.
+f or F shows or hides where the time of the frames goes (see FrameProfiler). c or C starts or stops writing it frame by frame to a CSV file in the profiles folder.
+Run the sketch with the --benchmark argument to print the micro benchmarks of the hot paths instead of playing (see BenchmarkRunner).
+Run it with the --batch argument to play many games with a scripted hero and print their statistics (see BatchRunner).
+Run it with --replay file=<recording> to play a recorded game again without a window and print where it ends (see ReplayRunner).
+Run it with the --allocations argument to check that the ticks of a game allocate no memory (see AllocationCheck).
+m or M saves the squares, the goal and the hero start of the current game as a map to the maps folder. Run the sketch with map=<file> to play every game on a saved map (see MapFile). Its squares have to be at least MIN_TILE_SIZE pixels on screen. Larger maps are for the tools without a window.
 
 This is a sketch for the AI Planning course on Coursera. The goal is to reach the green square, while avoiding the hunting airplanes. There are some obstacles, indicating squares that cannot be visited.
 The hunting planes have different strategies. The first one follows you around. It goes where you go. The second one is an interceptor that always tries to go between you and the goal. The third one tries to cut off posible escape routes. Its position depends on that of the other hunters. Together they form a coordinated team.
@@ -10,23 +16,68 @@ http://www.widgetworx.com/spritelib/
 */
 
 import java.util.Iterator;
+import java.util.Arrays;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.IOException;
 
 // constants
 final int NUM_OBSTACLES = 40;
 final int OBSTACLE_SPRITES = 4;
-final double HERO_SPEED = 2.0;
+final double HERO_SPEED = 2.0; // speeds are in pixels per tick
 final double FOLLOWER_SPEED = 1.2;
 final double INTERCEPTOR_SPEED = 1.1;
 final double ROUTE_CUTTER_SPEED = 1.0;
+final double TICK_RATE = 60; // ticks of the simulation per second, whatever the frame rate
+final int FRAME_RATE = 60; // frames drawn per second, if the host keeps up
+final int MAX_TICKS_PER_FRAME = 5; // a frame catches up at most this many ticks. beyond that, the game slows down
 final int SCREEN_SIZE_X = 640;
 final int SCREEN_SIZE_Y = 480;
 final int WORLD_SIZE_X = 640;
 final int WORLD_SIZE_Y = 480;
 final int GRID_SIZE_X = 32;
 final int GRID_SIZE_Y = 24;
+final int MIN_TILE_SIZE = 4; // smallest square in pixels of a map played in the sketch, where each square is a tile and may hold an obstacle sprite
 final int WALKABLE_COLOR = #FFD700;
 final int NON_WALKABLE_COLOR = #FF1000;
 
+// search modes of the hunters that are not heading for the hero
+final int SEARCH_INCREMENTAL = 0; // repair the plan of the last frame (IncrementalSearch)
+final int SEARCH_ASTAR = 1; // A* from scratch every frame (AStarSearch)
+final int SEARCH_JPS = 2; // Jump Point Search from scratch every frame (JumpPointSearch)
+final int SEARCH_JPS_PLUS = 3; // Jump Point Search with precomputed jumps (JumpPointSearch)
+final int SEARCH_HIERARCHICAL = 4; // HPA* on the clusters of the world (HierarchicalSearch)
+final int SEARCH_FLOW_FIELDS = 5; // follow flow fields shared by the whole swarm, for thousands of hunters (Swarm)
+final int SEARCH_SCHEDULED = 6; // A* spread over the ticks by a shared scheduler, with a budget per tick (PlanningScheduler)
+final int CLUSTER_SIZE = 16; // side of the clusters of the hierarchical search in squares
+final int FLOW_FIELD_BUDGET = 16384; // nodes settled per tick for each flow field of the swarm
+final int PLANNING_BUDGET = 8192; // nodes expanded per tick by the scheduled searches of all the hunters
+final boolean FOLLOW_PATHS = true; // hunters searching from scratch follow their paths, and only search again at a new square when their destination moved
+
+// hunters of each kind in a game
+final int NUM_FOLLOWERS = 1;
+final int NUM_INTERCEPTORS = 1;
+final int NUM_ROUTE_CUTTERS = 1;
+
+// columns of the frame profiler. the times are nanoseconds per frame, summed over the ticks of the frame and over the hunters
+final int PROFILE_FRAME = 0; // the whole frame
+final int PROFILE_HERO = 1; // the hero deciding and moving
+final int PROFILE_PREPARE = 2; // preparing the planning: the distance field of the hero, the swarm and the scheduled searches
+final int PROFILE_DESTINATIONS = 3; // calculateDestination() of the hunters
+final int PROFILE_SEARCH = 4; // the searches of the hunters
+final int PROFILE_SLOWEST_SEARCH = 5; // the search of the slowest hunter
+final int PROFILE_MOVES = 6; // the hunters moving
+final int PROFILE_RULES = 7; // checking whether the game is won or lost
+final int PROFILE_WORLD_DRAW = 8; // drawing the world
+final int PROFILE_DRAWABLES = 9; // drawing the other drawables
+final int PROFILE_ANIMATIONS = 10; // drawing the animations
+final int PROFILE_TICKS = 11; // ticks run
+final int PROFILE_EXPANDED = 12; // nodes expanded by the searches
+final int PROFILE_BYTES = 13; // bytes allocated by the ticks. -1 if the JVM can't count them
+final int PROFILE_COLUMNS = 14;
+final int PROFILE_FRAMES = 300; // frames the percentiles are taken over
+
 // images
 final String WORLD_IMAGE = "chinese-illustration.jpg";
 final String OBSTACLE_IMAGE = "obstacle.png";
@@ -41,10 +92,14 @@ final String YOU_LOST_IMAGE = "you_lost.png";
 // objects
 World world;
 View view;
-Rules rules;
-ArrayList<Obstacle> obstacles;
-Hero hero;
-ArrayList<Hunter> hunters;
+Simulation simulation;
+Recording recording; // seed and clicks of the current game
+FixedTimestep timestep; // ticks to run per frame
+FrameProfiler profiler; // where the time of the frames goes
+boolean showProfile; // whether the profiler is drawn over the game
+PrintWriter profileExport; // the frames are written to it while it is open
+AssetManager assets; // every image of the sketch, loaded once
+Sprites sprites; // images of the objects of a game, shared by all games
 // the next two lists contain the objects of the world to be drawn.
 // the difference between the two is that animations can expire.
 ArrayList<Drawable> drawables; 
@@ -68,35 +123,77 @@ one time init
 **/
 void setup() {
   
-  size(SCREEN_SIZE_X, SCREEN_SIZE_Y);
+  // the tools run without a window, so they are dispatched before size() asks for an OpenGL context.
+  // none of them reaches size(), so setup() isn't started over for the change of renderer
+  // benchmark instead of playing if asked to on the command line
+  if (args != null && Arrays.asList(args).contains("--benchmark")) {
+    new BenchmarkRunner(args).run();
+    exit();
+    return;
+  }
+  // or play games in batch
+  if (args != null && Arrays.asList(args).contains("--batch")) {
+    new BatchRunner(args).run();
+    exit();
+    return;
+  }
+  // or replay a recorded game
+  if (args != null && Arrays.asList(args).contains("--replay")) {
+    new ReplayRunner(args).run();
+    exit();
+    return;
+  }
+  // or check that the ticks of a game don't allocate
+  if (args != null && Arrays.asList(args).contains("--allocations")) {
+    if (!new AllocationCheck(args).run()) {
+      System.exit(1);
+    }
+    exit();
+    return;
+  }
+  
+  // P2D draws the sprites of the obstacles and the agents as batches of textured quads (see SpriteBatch)
+  size(SCREEN_SIZE_X, SCREEN_SIZE_Y, P2D);
   background(0);
   imageMode(CORNER);
   
-  // create the world
-  PImage worldImage = loadImage(WORLD_IMAGE);
-  world = new World(WORLD_SIZE_X, WORLD_SIZE_Y, GRID_SIZE_X, GRID_SIZE_Y, worldImage);
+  // load all the images in the background at once. asking for one waits until it is loaded
+  assets = new AssetManager(new String[] { WORLD_IMAGE, OBSTACLE_IMAGE, HERO_IMAGE, HUNTER_FOLLOWER_IMAGE, HUNTER_INTERCEPTOR_IMAGE, HUNTER_ROUTE_CUTTER_IMAGE,
+    CLICK_TO_PLAY_IMAGE, YOU_WON_IMAGE, YOU_LOST_IMAGE });
+  
+  // create the world, on a prepared map if one is given
+  MapFile map = loadMap();
+  if (map != null) {
+    world = new World(WORLD_SIZE_X, WORLD_SIZE_Y, map, assets.getImage(WORLD_IMAGE));
+  }
+  else {
+    world = new World(WORLD_SIZE_X, WORLD_SIZE_Y, GRID_SIZE_X, GRID_SIZE_Y, assets.getImage(WORLD_IMAGE));
+  }
    
   // create the View
   view = new View(world);
  
-  // create the obstacles
-  PImage obstacleImage = loadImage(OBSTACLE_IMAGE); // http://www.widgetworx.com/spritelib/
-  int spriteNumber = OBSTACLE_SPRITES;
-  int spriteWidth = obstacleImage.width / spriteNumber;
-  PImage[] obstacleSprites = new PImage[spriteNumber];
-  for (int i = 0; i < spriteNumber; i++) {
-    obstacleSprites[i] = obstacleImage.get(i * spriteWidth, 0, spriteWidth, obstacleImage.height);
-  }
-  obstacles = new ArrayList<Obstacle>();
-  for (int i = 0; i < NUM_OBSTACLES; i++) {
-    Obstacle obstacle = new Obstacle(null, obstacleSprites, world); // position will be assigned later, so set it to null for the time being
-    obstacles.add(obstacle);
-  }
+  // create the simulation. it runs the game, while the sketch only draws it and forwards the input
+  simulation = new Simulation(world, new Settings());
+  
+  // the simulation ticks at a fixed rate, independent of the frames
+  frameRate(FRAME_RATE);
+  timestep = new FixedTimestep(TICK_RATE, MAX_TICKS_PER_FRAME);
+  
+  // measure the frames, shown on demand
+  profiler = new FrameProfiler(PROFILE_FRAMES);
+  simulation.setProfiler(profiler);
+  showProfile = false;
+ 
+  // the sprites of the objects are the same for every game
+  PImage[] obstacleSprites = assets.getSprites(OBSTACLE_IMAGE, OBSTACLE_SPRITES); // http://www.widgetworx.com/spritelib/
+  sprites = new Sprites(obstacleSprites, assets.getImage(HERO_IMAGE), assets.getImage(HUNTER_FOLLOWER_IMAGE), assets.getImage(HUNTER_INTERCEPTOR_IMAGE),
+    assets.getImage(HUNTER_ROUTE_CUTTER_IMAGE));
  
-  // load textImages
-  clickToPlay = loadImage(CLICK_TO_PLAY_IMAGE);
-  youWon = loadImage(YOU_WON_IMAGE);
-  youLost = loadImage(YOU_LOST_IMAGE);
+  // text images
+  clickToPlay = assets.getImage(CLICK_TO_PLAY_IMAGE);
+  youWon = assets.getImage(YOU_WON_IMAGE);
+  youLost = assets.getImage(YOU_LOST_IMAGE);
  
   // load and init objects that have to be initialized again for each new game
   load();
@@ -104,50 +201,28 @@ void setup() {
 }
 
 /**
-load and init objects that have to be loaded for each new game
+init objects that have to be initialized again for each new game. the images were loaded in setup(), so this reads no files
 **/
 void load() {
   
-  // create the rules and tell the world about them
-  rules = new Rules(world);
-  world.registerRules(rules);
-  
-  // position obstacles
-  world.positionObstacles(obstacles);
-  
-  // create the hero and tell the world about it
-  PImage heroImage = loadImage(HERO_IMAGE);
-  hero = new Hero(rules.generateHeroStart(), HERO_SPEED, heroImage, world);
-  world.registerHero(hero);
-  
-  // create the hunters and tell the world about them
-  hunters = new ArrayList<Hunter>();
-  // follower
-  PImage followerImage = loadImage(HUNTER_FOLLOWER_IMAGE);
-  Follower follower = new Follower(rules.generateHunterStart(hero), FOLLOWER_SPEED, followerImage, world);
-  hunters.add(follower);
-  // interceptor
-  PImage interceptorImage = loadImage(HUNTER_INTERCEPTOR_IMAGE);
-  Interceptor interceptor = new Interceptor(rules.generateHunterStart(hero), INTERCEPTOR_SPEED, interceptorImage, world);
-  hunters.add(interceptor);
-  // square
-  PImage routeCutterImage = loadImage(HUNTER_ROUTE_CUTTER_IMAGE);
-  RouteCutter routeCutter = new RouteCutter(rules.generateHunterStart(hero), ROUTE_CUTTER_SPEED, routeCutterImage, world);
-  hunters.add(routeCutter);
-  // tell world
-  world.registerHunters(hunters);
+  // seed the world, so the game can be recorded and played again
+  long seed = System.nanoTime();
+  world.getRandom().setSeed(seed);
+  recording = new Recording(seed, simulation.getSettings(), world.getGridSize());
+  recording.setMap(world.getMap());
+  simulation.newGame(sprites);
   
   // create drawable list
   drawables = new ArrayList<Drawable>();
   
   // put drawables in list
   drawables.add(world);
-  drawables.add(rules);
-  for (Obstacle obstacle : obstacles) {
+  drawables.add(simulation.getRules());
+  for (Obstacle obstacle : simulation.getObstacles()) {
     drawables.add(obstacle);
   }
-  drawables.add(hero);
-  for (Hunter hunter : hunters) {
+  drawables.add(simulation.getHero());
+  for (Hunter hunter : simulation.getHunters()) {
     drawables.add(hunter);
   }
   
@@ -164,35 +239,35 @@ main loop
 **/
 void draw() {
 
-  // do stuff
+  profiler.beginFrame();
+
+  // do stuff. run the ticks that are due, and draw the agents as far as the frame is into the next one
   if (state == PLAYING) {
-    hero.doSomething();
-    // we're nice and check for winning conditions first
-    if (rules.checkWon()) {
-      state = WON;
-    }
-    else {
-      // only move the enemies if the player has not won
-      for (Hunter hunter : hunters) {
-        hunter.doSomething();
-      }    
-      // check if a hunter caught the player
-      if (rules.checkLost()) {
-        state = LOST;
-      }
+    int ticks = timestep.advance(System.nanoTime());
+    for (int i = 0; i < ticks && state == PLAYING; i++) {
+      state = simulation.step();
     }
   }
+  view.setInterpolation(state == PLAYING ? timestep.getAlpha() : 1);
 
   // draw stuff
   
   // clear buffer
   background(0);
 
-  // drawables
+  // drawables. the world comes first
+  long time = System.nanoTime();
+  world.draw(view);
+  view.getSpriteBatch().flush();
+  time = profiler.lap(PROFILE_WORLD_DRAW, time);
   for (Drawable drawable : drawables) {
-
-    drawable.draw(view);
+    if (drawable != world) {
+      drawable.draw(view);
+    }
   }  
+  // the sprites the drawables added
+  view.getSpriteBatch().flush();
+  time = profiler.lap(PROFILE_DRAWABLES, time);
 
   // animations  
   Iterator<Animation> animationIterator = animations.iterator();
@@ -204,6 +279,7 @@ void draw() {
       animationIterator.remove();
     }
   }
+  profiler.lap(PROFILE_ANIMATIONS, time);
  
   // text
   if (state != PLAYING) {
@@ -217,6 +293,11 @@ void draw() {
     }
   }
 
+  profiler.endFrame();
+  if (showProfile) {
+    profiler.draw(view);
+  }
+
 }
 
 /**
@@ -231,6 +312,8 @@ void mouseClicked() {
       load();
     }
     state = PLAYING;
+    // no ticks for the time spent waiting
+    timestep.reset();
   }
   // otherwise, the click tells the hero where to go
   else {
@@ -239,7 +322,8 @@ void mouseClicked() {
     // we can only go to walkable squares. different colors for the clicking animation help the player
     if (world.isWalkable(gridPosition)) {
       colour = WALKABLE_COLOR;
-      hero.setDestination(gridPosition);
+      simulation.getHero().setDestination(gridPosition);
+      recording.addClick(simulation.getTick(), gridPosition);
     }
     else {
       colour = NON_WALKABLE_COLOR;
@@ -256,4 +340,131 @@ void keyPressed() {
   if (key == 'p' || key == 'P') {
     state = PAUSED;
   }
+  else if (key == 'r' || key == 'R') {
+    saveRecording();
+  }
+  else if (key == 'f' || key == 'F') {
+    showProfile = !showProfile;
+  }
+  else if (key == 'c' || key == 'C') {
+    toggleProfileExport();
+  }
+  else if (key == 'm' || key == 'M') {
+    saveMap();
+  }
+}
+
+/**
+start writing the frames of the profiler to a new CSV file, or stop if it is being written
+**/
+void toggleProfileExport() {
+  if (profileExport == null) {
+    String file = "profiles/frames-" + System.currentTimeMillis() + ".csv";
+    profileExport = createWriter(file);
+    profiler.startExport(profileExport);
+    println("Writing frames to " + file);
+  }
+  else {
+    profiler.stopExport();
+    profileExport.close();
+    profileExport = null;
+    println("Stopped writing frames");
+  }
+}
+
+/**
+save the recording of the current game, up to the current tick
+**/
+void saveRecording() {
+  String file = "recordings/game-" + recording.getSeed() + ".rec";
+  recording.setEnd(simulation.getTick(), simulation.getState());
+  OutputStream output = createOutput(file);
+  if (output == null) {
+    println("Could not save recording " + file);
+    return;
+  }
+  try {
+    recording.write(output);
+    println("Saved recording " + file);
+  }
+  catch (IOException e) {
+    println("Could not save recording " + file + ": " + e.getMessage());
+  }
+  finally {
+    try {
+      output.close();
+    }
+    catch (IOException e) {
+      // nothing left to do
+    }
+  }
+}
+
+/**
+the map given on the command line with map=<file>, or null to play on random obstacles
+**/
+MapFile loadMap() {
+  if (args == null) {
+    return null;
+  }
+  for (String arg : args) {
+    String[] pair = split(arg, '=');
+    if (pair.length == 2 && pair[0].equals("map")) {
+      MapFile map;
+      try {
+        map = new MapFile(new File(sketchPath(pair[1])));
+      }
+      catch (IOException e) {
+        throw new RuntimeException("Could not read the map " + pair[1], e);
+      }
+      // every square becomes a tile cut from the background, and every square that can't be visited an obstacle, so a large map can't be played in a window
+      CoordinateInt gridSize = map.getGridSize();
+      if (gridSize.getX() > WORLD_SIZE_X / MIN_TILE_SIZE || gridSize.getY() > WORLD_SIZE_Y / MIN_TILE_SIZE) {
+        throw new IllegalArgumentException("The map " + pair[1] + " is " + gridSize.getX() + "x" + gridSize.getY() + " squares, the sketch plays maps of up to "
+          + WORLD_SIZE_X / MIN_TILE_SIZE + "x" + WORLD_SIZE_Y / MIN_TILE_SIZE);
+      }
+      return map;
+    }
+  }
+  return null;
+}
+
+/**
+save the squares, the goal and the hero start of the current game as a map, with the jumps if they were computed
+**/
+void saveMap() {
+  String file = "maps/map-" + recording.getSeed() + ".map";
+  MapFile map = new MapFile(world, simulation.getRules().getGoal(), simulation.getHeroStart());
+  OutputStream output = createOutput(file);
+  if (output == null) {
+    println("Could not save map " + file);
+    return;
+  }
+  try {
+    map.write(output);
+    println("Saved map " + file);
+  }
+  catch (IOException e) {
+    println("Could not save map " + file + ": " + e.getMessage());
+  }
+  finally {
+    try {
+      output.close();
+    }
+    catch (IOException e) {
+      // nothing left to do
+    }
+  }
+}
+
+/**
+grid sizes from a command line argument of the tools, e.g. 32x24,256x256
+**/
+ArrayList<CoordinateInt> parseGrids(String list) {
+  ArrayList<CoordinateInt> grids = new ArrayList<CoordinateInt>();
+  for (String grid : split(list, ',')) {
+    String[] size = split(grid, 'x');
+    grids.add(new CoordinateInt(Integer.parseInt(size[0]), Integer.parseInt(size[1])));
+  }
+  return grids;
 }